@@ -9,6 +9,11 @@ repositories {
 dependencies {
     compileOnly("net.portswigger.burp.extensions:montoya-api:2025.8")
     implementation("com.alibaba.fastjson2:fastjson2:2.0.60")
+
+    testImplementation("net.portswigger.burp.extensions:montoya-api:2025.8")
+    testImplementation(platform("org.junit:junit-bom:5.13.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.withType<JavaCompile> {
@@ -17,6 +22,10 @@ tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
 }
 
+tasks.test {
+    useJUnitPlatform()
+}
+
 version = "1.1"
 
 tasks.jar {
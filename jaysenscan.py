@@ -1,11 +1,13 @@
-from flask import Flask, request, jsonify
+import json
+import os
+import struct
+from dataclasses import asdict
+from flask import Flask, Response, request, jsonify
 from __jaysendata import JaysenReqData,JaysenRespData
 app = Flask(__name__)
 
 # 对请求数据包进行解密操作
-@app.route('/RequestReceived', methods=['POST'])
-def request_received():
-    request_json = request.get_json()
+def request_received(request_json):
     # 初始化原始数据
     jaysendata = JaysenReqData(
         method=request_json.get("method", ""),
@@ -18,12 +20,10 @@ def request_received():
 
 #==============================================================================================
     # 返回修改后的数据包
-    return jsonify(jaysendata)
+    return jaysendata
 
 # 对解密后的请求进行加密操作
-@app.route('/RequestToBeSent', methods=['POST'])
-def handle_request():
-    request_json = request.get_json()
+def request_to_be_sent(request_json):
     # 初始化原始数据
     jaysendata = JaysenReqData(
         method=request_json.get("method", ""),
@@ -35,12 +35,10 @@ def handle_request():
 
 # ==============================================================================================
     # 返回修改后的数据包
-    return jsonify(jaysendata)
+    return jaysendata
 
 # 解密响应数据包
-@app.route('/ResponseReceived', methods=['POST'])
-def ResponseReceived():
-    resp_json = request.get_json()
+def response_received(resp_json):
     jaysendata = JaysenRespData(
         headers=resp_json.get("headers"),
         body=resp_json.get("body")
@@ -49,12 +47,10 @@ def ResponseReceived():
 
 # ==============================================================================================
     # 返回修改后的数据包
-    return jsonify(jaysendata)
+    return jaysendata
 
 #加密响应数据包
-@app.route('/ResponseToBeSent', methods=['POST'])
-def ResponseToBeSent():
-    resp_json = request.get_json()
+def response_to_be_sent(resp_json):
     jaysendata = JaysenRespData(
         headers=resp_json.get("headers"),
         body=resp_json.get("body")
@@ -63,7 +59,90 @@ def ResponseToBeSent():
 
 # ==============================================================================================
     # 不修改响应包
-    return jsonify(jaysendata)
+    return jaysendata
+
+# 接口路径与处理函数的对应关系（以下路由无需修改）
+STAGE_HANDLERS = {
+    "RequestReceived": request_received,
+    "RequestToBeSent": request_to_be_sent,
+    "ResponseReceived": response_received,
+    "ResponseToBeSent": response_to_be_sent,
+}
+
+# 只修改请求头/参数、不需要读取body的阶段，如 ["RequestToBeSent"]
+# 插件使用binary传输格式时，这些阶段不再发送body
+HEADERS_ONLY_STAGES = []
+
+# 二进制分帧格式：4字节大端信封长度 + 信封JSON + body原始字节
+FRAME_CONTENT_TYPE = "application/x-jaysen-frame"
+
+# 处理结果与原数据一致时只返回 {"unchanged": true}，插件将直接放行原数据包
+def to_result(handler, data):
+    result = asdict(handler(data))
+    if all(data.get(key) == value for key, value in result.items() if key in data):
+        return {"unchanged": True}
+    return result
+
+@app.route('/<stage>', methods=['POST'])
+def handle_single(stage):
+    handler = STAGE_HANDLERS.get(stage)
+    if handler is None:
+        return jsonify({"error": "unknown stage: " + stage}), 404
+    return jsonify(to_result(handler, request.get_json()))
+
+# 批量接口：请求体为数据包数组，按相同顺序返回处理后的数组
+@app.route('/batch/<stage>', methods=['POST'])
+def handle_batch(stage):
+    handler = STAGE_HANDLERS.get(stage)
+    if handler is None:
+        return jsonify({"error": "unknown stage: " + stage}), 404
+    return jsonify([to_result(handler, item) for item in request.get_json()])
+
+# 延迟测试接口：不做任何处理
+@app.route('/ping', methods=['POST'])
+def ping():
+    return jsonify({"unchanged": True})
+
+@app.route('/capabilities', methods=['GET'])
+def capabilities():
+    return jsonify({"headersOnly": HEADERS_ONLY_STAGES, "binary": True})
+
+def decode_frame(raw):
+    length = struct.unpack('>I', raw[:4])[0]
+    envelope = json.loads(raw[4:4 + length].decode('utf-8'))
+    return envelope, raw[4 + length:]
+
+def encode_frame(envelope, body=None):
+    envelope = dict(envelope, bodyIncluded=body is not None)
+    head = json.dumps(envelope, ensure_ascii=False).encode('utf-8')
+    return struct.pack('>I', len(head)) + head + (body or b'')
+
+# 二进制接口：body按字节传输，处理函数中的body仍为字符串
+@app.route('/bin/<stage>', methods=['POST'])
+def handle_binary(stage):
+    handler = STAGE_HANDLERS.get(stage)
+    if handler is None:
+        return jsonify({"error": "unknown stage: " + stage}), 404
+    envelope, raw_body = decode_frame(request.get_data())
+    body_included = envelope.pop("bodyIncluded", True)
+    if body_included:
+        # surrogateescape 保证非UTF-8字节（如protobuf）原样往返
+        envelope["body"] = raw_body.decode('utf-8', 'surrogateescape')
+    result = to_result(handler, envelope)
+    body = result.pop("body", None)
+    new_body = None
+    if body_included and body is not None and body != envelope["body"]:
+        new_body = body.encode('utf-8', 'surrogateescape')
+    return Response(encode_frame(result, new_body), mimetype=FRAME_CONTENT_TYPE)
+
+# 填写套接字路径（如 /tmp/jaysenscan.sock）后改为监听Unix域套接字，插件接口链接填写 unix:/tmp/jaysenscan.sock
+UNIX_SOCKET = ""
 
 if __name__ == '__main__':
-    app.run(host='127.0.0.1', port=5000, debug=True)
\ No newline at end of file
+    # threaded=True 时开发服务器使用HTTP/1.1，插件端可复用keep-alive连接
+    if UNIX_SOCKET:
+        if os.path.exists(UNIX_SOCKET):
+            os.remove(UNIX_SOCKET)
+        app.run(host='unix://' + UNIX_SOCKET, debug=True, threaded=True)
+    else:
+        app.run(host='127.0.0.1', port=5000, debug=True, threaded=True)
@@ -0,0 +1,144 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.HttpRequestResponse;
+import java.util.Arrays;
+
+/**
+ * 单个目标主机的自适应限速（AIMD：加性增、乘性减）
+ * 1. 出现429/503或连接失败时立即将速率和并发上限减半（1秒内最多减一次，避免在途请求的连续失败把速率压到底）
+ * 2. 每WINDOW个响应评估一次：P90延迟超过阈值时减半，否则速率和并发上限小幅增加
+ * 3. 429/503响应带有Retry-After（秒）时，该主机暂停到指定时间后再发送
+ * 速率在[最小速率, 最大速率]之间，并发上限在[1, 单主机在途请求上限]之间
+ */
+public class AdaptiveRateController {
+    private static final int WINDOW = 20;
+    private static final long DECREASE_COOLDOWN_NANOS = 1_000_000_000L;
+    // Retry-After最长遵守的时间
+    private static final long MAX_PAUSE_MILLIS = 120_000;
+
+    private final double minQps;
+    private final double maxQps;
+    private final int maxConcurrency;
+    private final long latencyThresholdNanos;
+    private final TokenBucket rateLimiter;
+    private double qps;
+    private int concurrency;
+    // 当前评估窗口内的延迟
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+    private long lastDecreaseTime;
+    private volatile long pausedUntil;
+    private long increaseCount;
+    private long decreaseCount;
+    private String lastReason = "-";
+
+    public AdaptiveRateController(double minQps, double maxQps, int maxConcurrency, long latencyThresholdMillis) {
+        this.minQps = Math.max(0.1, minQps);
+        this.maxQps = Math.max(this.minQps, maxQps);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.latencyThresholdNanos = latencyThresholdMillis * 1_000_000;
+        // 从上限的一半开始探测
+        this.qps = Math.max(this.minQps, this.maxQps / 2);
+        this.concurrency = Math.max(1, this.maxConcurrency / 2);
+        this.rateLimiter = new TokenBucket(qps);
+        this.lastDecreaseTime = System.nanoTime() - DECREASE_COOLDOWN_NANOS;
+    }
+
+    public TokenBucket rateLimiter() {
+        return rateLimiter;
+    }
+
+    public synchronized int concurrency() {
+        return concurrency;
+    }
+
+    // 距离Retry-After指定时间的剩余毫秒数
+    public long pauseRemainingMillis() {
+        return pausedUntil - System.currentTimeMillis();
+    }
+
+    // 记录一次请求结果（result为空或没有响应视为连接失败）
+    public synchronized void record(HttpRequestResponse result, long latencyNanos) {
+        if (result == null || !result.hasResponse()) {
+            decrease("连接失败");
+            return;
+        }
+        short status = result.response().statusCode();
+        if (status == 429 || status == 503) {
+            long retryAfter = parseRetryAfter(result.response().headerValue("Retry-After"));
+            if (retryAfter > 0) {
+                pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + Math.min(retryAfter, MAX_PAUSE_MILLIS));
+            }
+            decrease("HTTP " + status);
+            return;
+        }
+        latencies[samples++] = latencyNanos;
+        if (samples < WINDOW) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        long p90 = sorted[(int) Math.ceil(sorted.length * 0.9) - 1];
+        if (p90 > latencyThresholdNanos) {
+            decrease(String.format("P90延迟%dms", p90 / 1_000_000));
+        } else {
+            increase();
+        }
+    }
+
+    private void increase() {
+        samples = 0;
+        double step = Math.max(1, maxQps / 20);
+        double newQps = Math.min(maxQps, qps + step);
+        int newConcurrency = Math.min(maxConcurrency, concurrency + 1);
+        if (newQps != qps || newConcurrency != concurrency) {
+            qps = newQps;
+            concurrency = newConcurrency;
+            rateLimiter.setRate(qps);
+            increaseCount++;
+        }
+    }
+
+    private void decrease(String reason) {
+        samples = 0;
+        long now = System.nanoTime();
+        if (now - lastDecreaseTime < DECREASE_COOLDOWN_NANOS) {
+            return;
+        }
+        lastDecreaseTime = now;
+        qps = Math.max(minQps, qps / 2);
+        concurrency = Math.max(1, concurrency / 2);
+        rateLimiter.setRate(qps);
+        decreaseCount++;
+        lastReason = reason;
+    }
+
+    // 只支持秒数形式的Retry-After
+    private static long parseRetryAfter(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public synchronized String describe() {
+        long pause = pauseRemainingMillis();
+        return String.format("速率=%.1f/s 并发上限=%d 增加=%d 降低=%d 最近降低原因=%s%s", qps, concurrency,
+                increaseCount, decreaseCount, lastReason, pause > 0 ? " 暂停剩余=" + pause + "ms" : "");
+    }
+}
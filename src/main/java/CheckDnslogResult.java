@@ -50,6 +50,8 @@ public class CheckDnslogResult {
 
     // 缓存：key=关键词（如漏洞payload中的唯一标识），value=对应的请求信息列表（可能多个请求用同一关键词）
     private final Map<String, List<HttpRequestResponse>> keywordToRequests = new ConcurrentHashMap<>();
+    // 关键词对应的注入点（如 header:User-Agent），命中时一并展示
+    private final Map<String, String> keywordToPoint = new ConcurrentHashMap<>();
 
     // 定时任务线程池（单线程即可，避免并发检查冲突）
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -89,6 +91,27 @@ public class CheckDnslogResult {
         // 线程安全地添加到缓存，同一个关键词可能对应多个请求
         keywordToRequests.computeIfAbsent(keyword, k -> new CopyOnWriteArrayList<>())
                 .add(request);
+        // 记录到扫描任务日志，重启后恢复未检查的关键词
+        ScanJournal.keywords(Collections.singletonMap(keyword, null), request);
+    }
+
+    // 添加同一请求中各注入点的关键词（每个注入点使用独立的DNSLOG标签），key=关键词，value=注入点
+    public void addToBatch(Map<String, String> pointKeywords, HttpRequestResponse request) {
+        for (Map.Entry<String, String> entry : pointKeywords.entrySet()) {
+            keywordToPoint.put(entry.getKey(), entry.getValue());
+            keywordToRequests.computeIfAbsent(entry.getKey(), k -> new CopyOnWriteArrayList<>())
+                    .add(request);
+        }
+        ScanJournal.keywords(pointKeywords, request);
+    }
+
+    // 从扫描任务日志恢复未检查的关键词（不重复记录）
+    public void restore(String keyword, HttpRequestResponse request, String point) {
+        if (point != null) {
+            keywordToPoint.put(keyword, point);
+        }
+        keywordToRequests.computeIfAbsent(keyword, k -> new CopyOnWriteArrayList<>())
+                .add(request);
     }
 
     // 批量执行DNS检查的核心方法
@@ -136,11 +159,22 @@ public class CheckDnslogResult {
         // 处理命中结果：标记漏洞并记录日志
         for (String hitKeyword : hitKeywords) {
             List<HttpRequestResponse> relatedRequests = currentBatch.get(hitKeyword);
+            String point = keywordToPoint.get(hitKeyword);
+            String vulnerabilityName = point == null ? "Log4j/fJson" : "Log4j/fJson（" + point + "）";
             for (HttpRequestResponse req : relatedRequests) {
                 // 标记漏洞（例如添加到结果面板）
-                this.mySuiteTab.addRequestInfo(req,"Log4j/fJson");
+                this.mySuiteTab.addRequestInfo(req, vulnerabilityName);
                 // 记录日志
-                this.montoyaApi.logging().logToOutput("发现漏洞：" + req.request().url() + "（关键词：" + hitKeyword + "）");
+                this.montoyaApi.logging().logToOutput("发现漏洞：" + req.request().url() + "（关键词：" + hitKeyword
+                        + (point == null ? "" : "，注入点：" + point) + "）");
+            }
+        }
+
+        ScanJournal.keywordsChecked(currentBatch.keySet());
+        // 检查过程中又添加了请求的关键词保留注入点
+        for (String keyword : currentBatch.keySet()) {
+            if (!keywordToRequests.containsKey(keyword)) {
+                keywordToPoint.remove(keyword);
             }
         }
 
@@ -219,6 +253,8 @@ public class CheckDnslogResult {
         String payload = client.generatePayload(PayloadOption.WITHOUT_SERVER_LOCATION).toString() + ".oastify.com";
         // 存储映射关系（使用DnslogConfig单例的运行时Map）
         DnslogConfig.getInstance().domainToClientMap.put(payload, client);
+        // 保存客户端密钥，重启后恢复客户端以查询本次生成域名的回连记录
+        ScanJournal.collaborator(payload, client);
         // 同时更新配置中的"最后生成的域名"（可选，方便界面显示）
         DnslogConfig.getInstance().collaboratorDomain = payload;
         montoyaApi.logging().logToOutput("生成Collaborator域名：" + payload);
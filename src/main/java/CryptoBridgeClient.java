@@ -0,0 +1,441 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 加解密桥接接口的共享客户端
+ * 特性：
+ * 1. 全局复用一个HttpClient，连接保持keep-alive，不再每次调用都新建TCP连接
+ * 2. 可选HTTP/2（明文h2c升级，服务端不支持时自动回退HTTP/1.1）
+ * 3. 最大在途请求数、连接超时、读取超时均可在配置中调整（HttpClient自行管理连接，cryptoPoolSize只限制同时在途的请求数）
+ * 4. 按接口路径统计调用次数、失败次数和延迟
+ * 5. 支持二进制分帧协议（见CryptoFrame），并读取接口声明的能力（/capabilities）
+ * 6. 接口地址为 unix:/path/to.sock 时通过Unix域套接字通信（见UnixSocketHttpTransport）
+ * 7. 熔断器：接口宕机或过慢时快速失败，调用方直接放行原数据包（见CryptoCircuitBreaker）
+ */
+public class CryptoBridgeClient {
+    // 单例实例（配置变更后重建）
+    private static volatile CryptoBridgeClient instance;
+    // 按接口路径统计的延迟数据（跨实例保留）
+    private static final Map<String, EndpointStats> STATS = new ConcurrentHashMap<>();
+    // 接口能力的刷新间隔（毫秒），修改桥接脚本后无需重载插件
+    private static final long CAPABILITIES_REFRESH_MS = 30_000;
+
+    private final HttpClient httpClient;
+    private final ExecutorService clientExecutor;
+    // 接口地址为unix:时使用Unix域套接字，httpClient为null
+    private final UnixSocketHttpTransport unixTransport;
+    // 限制同时在途的请求数（cryptoPoolSize），实际连接数由HttpClient管理
+    private final Semaphore permits;
+    // 熔断器（配置变更重建客户端时一并重置）
+    private final CryptoCircuitBreaker breaker;
+    private final String baseUrl;
+    private final long readTimeoutMs;
+    // 创建时的配置快照，用于判断是否需要重建
+    private final String configSignature;
+    // 接口声明只处理请求头的阶段（二进制协议下这些阶段不发送body）
+    private volatile Set<String> headersOnlyStages;
+    private volatile long capabilitiesFetchedAt;
+
+    private CryptoBridgeClient(String baseUrl, DnslogConfig config, String configSignature) {
+        int poolSize = Math.max(1, config.cryptoPoolSize);
+        this.baseUrl = baseUrl;
+        this.readTimeoutMs = Math.max(1, config.cryptoReadTimeoutMs);
+        this.configSignature = configSignature;
+        this.permits = new Semaphore(poolSize);
+        this.breaker = new CryptoCircuitBreaker(config);
+        if (UnixSocketHttpTransport.isUnixAddress(baseUrl)) {
+            this.unixTransport = new UnixSocketHttpTransport(baseUrl, readTimeoutMs);
+            this.clientExecutor = null;
+            this.httpClient = null;
+            return;
+        }
+        this.unixTransport = null;
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.clientExecutor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread t = new Thread(r, "jaysen-crypto-bridge-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(config.cryptoHttp2Enabled ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(Math.max(1, config.cryptoConnectTimeoutMs)))
+                .executor(clientExecutor)
+                .build();
+    }
+
+    // 获取当前配置对应的客户端，配置变化时重建并关闭旧客户端
+    public static CryptoBridgeClient getInstance() {
+        DnslogConfig config = DnslogConfig.getInstance();
+        String signature = signatureOf(config);
+        CryptoBridgeClient current = instance;
+        if (current == null || !current.configSignature.equals(signature)) {
+            synchronized (CryptoBridgeClient.class) {
+                current = instance;
+                if (current == null || !current.configSignature.equals(signature)) {
+                    CryptoBridgeClient old = current;
+                    current = new CryptoBridgeClient(config.cryptoApiUrl, config, signature);
+                    instance = current;
+                    if (old != null) {
+                        old.close();
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    // 为指定地址创建独立客户端（用于延迟测试，用完需调用close）
+    public static CryptoBridgeClient create(String baseUrl) {
+        DnslogConfig config = DnslogConfig.getInstance();
+        return new CryptoBridgeClient(baseUrl, config, baseUrl);
+    }
+
+    private static String signatureOf(DnslogConfig config) {
+        return config.cryptoApiUrl + "|" + config.cryptoPoolSize + "|" + config.cryptoConnectTimeoutMs
+                + "|" + config.cryptoReadTimeoutMs + "|" + config.cryptoHttp2Enabled
+                + "|" + config.cryptoBreakerEnabled + "|" + config.cryptoBreakerFailureRate
+                + "|" + config.cryptoBreakerSlowMs + "|" + config.cryptoBreakerOpenMs;
+    }
+
+    // 拼接完整的接口地址
+    public String endpoint(String path) {
+        return baseUrl.endsWith("/") ? baseUrl + path : baseUrl + "/" + path;
+    }
+
+    /**
+     * 向桥接接口POST一段JSON并返回响应体
+     * @param path 接口路径（如RequestReceived）
+     * @param jsonBody 请求的JSON字符串
+     * @return 响应体字符串
+     */
+    public String post(String path, String jsonBody) throws IOException, InterruptedException {
+        String contentType = "application/json;charset=UTF-8";
+        if (unixTransport != null) {
+            byte[] bytes = jsonBody.getBytes(StandardCharsets.UTF_8);
+            return execute(path, true, () -> new String(
+                    exchangeUnix("POST", path, contentType, List.of(bytes), bytes.length), StandardCharsets.UTF_8));
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(endpoint(path)))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8))
+                .build();
+        return execute(path, true, () -> send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 以二进制分帧协议POST数据，响应按帧流式读取
+     * @param path 接口路径（如bin/RequestToBeSent）
+     * @param frame 由CryptoFrame.encode编码的请求体
+     * @return 接口返回的数据帧
+     */
+    public CryptoFrame postFrame(String path, CryptoFrame.Encoded frame) throws IOException, InterruptedException {
+        if (unixTransport != null) {
+            return execute(path, true, () -> CryptoFrame.read(new ByteArrayInputStream(
+                    exchangeUnix("POST", path, CryptoFrame.CONTENT_TYPE, frame.chunks(), frame.length()))));
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(endpoint(path)))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Content-Type", CryptoFrame.CONTENT_TYPE)
+                .POST(frame.publisher())
+                .build();
+        return execute(path, true, () -> {
+            try (InputStream stream = send(request, HttpResponse.BodyHandlers.ofInputStream())) {
+                return CryptoFrame.read(stream);
+            }
+        });
+    }
+
+    // 接口声明只处理请求头的阶段，接口不支持/capabilities时返回空集合
+    public Set<String> headersOnlyStages() {
+        long now = System.currentTimeMillis();
+        if (headersOnlyStages == null || now - capabilitiesFetchedAt > CAPABILITIES_REFRESH_MS) {
+            synchronized (this) {
+                if (headersOnlyStages == null || now - capabilitiesFetchedAt > CAPABILITIES_REFRESH_MS) {
+                    headersOnlyStages = fetchHeadersOnlyStages();
+                    capabilitiesFetchedAt = now;
+                }
+            }
+        }
+        return headersOnlyStages;
+    }
+
+    private Set<String> fetchHeadersOnlyStages() {
+        String path = "capabilities";
+        // 熔断期间不请求，沿用上次结果，避免在代理线程上等待超时
+        if (breaker.getState() != CryptoCircuitBreaker.State.CLOSED) {
+            return headersOnlyStages != null ? headersOnlyStages : Collections.emptySet();
+        }
+        try {
+            String response;
+            if (unixTransport != null) {
+                response = execute(path, false, () -> new String(exchangeUnix("GET", path, null, null, 0), StandardCharsets.UTF_8));
+            } else {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create(endpoint(path)))
+                        .timeout(Duration.ofMillis(readTimeoutMs))
+                        .GET()
+                        .build();
+                response = execute(path, false, () -> send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)));
+            }
+            JSONObject capabilities = JSON.parseObject(response);
+            JSONArray stages = capabilities == null ? null : capabilities.getJSONArray("headersOnly");
+            if (stages == null) {
+                return Collections.emptySet();
+            }
+            Set<String> result = new HashSet<>();
+            for (int i = 0; i < stages.size(); i++) {
+                result.add(stages.getString(i));
+            }
+            return Collections.unmodifiableSet(result);
+        } catch (Exception e) {
+            // 旧版接口没有该路径，按全部阶段都需要body处理
+            return Collections.emptySet();
+        }
+    }
+
+    // 一次完整的接口调用（含读取响应体）
+    private interface Exchange<R> {
+        R run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * 执行调用并记录统计，读取响应体期间一直占用在途请求许可
+     * @param guarded 是否受熔断器保护（能力查询等辅助接口不计入熔断统计）
+     */
+    private <R> R execute(String path, boolean guarded, Exchange<R> exchange) throws IOException, InterruptedException {
+        if (guarded) {
+            breaker.acquire();
+        }
+        EndpointStats stats = STATS.computeIfAbsent(path, k -> new EndpointStats());
+        // 在途请求已达上限时等待，超过读取超时仍未拿到许可则放弃
+        if (!permits.tryAcquire(readTimeoutMs, TimeUnit.MILLISECONDS)) {
+            stats.recordFailure();
+            if (guarded) {
+                breaker.onFailure("在途请求许可等待超时");
+            }
+            throw new IOException("加解密接口在途请求已达上限，等待超时");
+        }
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = exchange.run();
+        } catch (InterruptedException e) {
+            stats.recordFailure();
+            if (guarded) {
+                breaker.onIgnored();
+            }
+            throw e;
+        } catch (IOException e) {
+            stats.recordFailure();
+            if (guarded) {
+                breaker.onFailure(e.getMessage());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // 响应格式错误（如JSON解析失败）同样计为失败，保证半开状态的探测名额被释放
+            stats.recordFailure();
+            if (guarded) {
+                breaker.onFailure(e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+            throw e;
+        } finally {
+            permits.release();
+        }
+        long nanos = System.nanoTime() - start;
+        stats.recordSuccess(nanos);
+        if (guarded) {
+            breaker.onSuccess(nanos);
+        }
+        return result;
+    }
+
+    // 当前共享客户端的熔断状态，供UI展示
+    public static String breakerStatus() {
+        CryptoBridgeClient current = instance;
+        return current == null ? "尚未调用加解密接口" : current.breaker.describe();
+    }
+
+    // 通过HttpClient发送，非200状态码视为失败
+    private <T> T send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        HttpResponse<T> response = httpClient.send(request, handler);
+        if (response.statusCode() != 200) {
+            if (response.body() instanceof InputStream in) {
+                in.close();
+            }
+            throw new IOException("加解密接口返回异常状态码：" + response.statusCode());
+        }
+        return response.body();
+    }
+
+    // 通过Unix域套接字发送，非200状态码视为失败
+    private byte[] exchangeUnix(String method, String path, String contentType, Iterable<byte[]> chunks,
+                                long contentLength) throws IOException {
+        UnixSocketHttpTransport.Response response =
+                unixTransport.exchange(method, "/" + path, contentType, chunks, contentLength);
+        if (response.statusCode() != 200) {
+            throw new IOException("加解密接口返回异常状态码：" + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * 延迟测试：向指定地址的 /ping 发送与真实请求大小相近的JSON数据包，统计往返延迟
+     * @param baseUrl 接口地址（http://或unix:）
+     * @param rounds 测试次数（另有少量预热不计入结果）
+     * @return 测试结果描述
+     */
+    public static String benchmark(String baseUrl, int rounds) {
+        Map<String, Object> sample = new HashMap<>();
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Host", "example.com");
+        headers.put("Content-Type", "application/json");
+        headers.put("User-Agent", "Mozilla/5.0");
+        sample.put("method", "POST");
+        sample.put("headers", headers);
+        sample.put("paramters", new HashMap<>());
+        sample.put("body", "{\"data\":\"" + "A".repeat(1024) + "\"}");
+        String jsonBody = JSON.toJSONString(sample);
+        int warmup = Math.min(20, rounds);
+        long[] nanos = new long[rounds];
+        CryptoBridgeClient client = create(baseUrl);
+        try {
+            for (int i = 0; i < warmup + rounds; i++) {
+                long start = System.nanoTime();
+                client.post("ping", jsonBody);
+                if (i >= warmup) {
+                    nanos[i - warmup] = System.nanoTime() - start;
+                }
+            }
+        } catch (Exception e) {
+            return String.format("%s 测试失败：%s%n", baseUrl, e.getMessage());
+        } finally {
+            client.close();
+        }
+        Arrays.sort(nanos);
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        return String.format("%s 次数=%d 平均=%.3fms P50=%.3fms P99=%.3fms 最大=%.3fms%n", baseUrl, rounds,
+                total / (double) rounds / 1_000_000.0, nanos[rounds / 2] / 1_000_000.0,
+                nanos[Math.min(rounds - 1, (int) (rounds * 0.99))] / 1_000_000.0, nanos[rounds - 1] / 1_000_000.0);
+    }
+
+    // 获取各接口的统计数据（只读快照）
+    public static Map<String, EndpointStats> getStats() {
+        return new TreeMap<>(STATS);
+    }
+
+    // 格式化统计数据，供UI展示
+    public static String formatStats() {
+        if (STATS.isEmpty()) {
+            return "暂无加解密接口调用记录";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, EndpointStats> entry : getStats().entrySet()) {
+            EndpointStats s = entry.getValue();
+            sb.append(String.format("%-18s 调用=%d 失败=%d 平均=%.2fms 最大=%.2fms 最近=%.2fms%n",
+                    entry.getKey(), s.getCount(), s.getFailures(),
+                    s.getAvgMillis(), s.getMaxMillis(), s.getLastMillis()));
+        }
+        return sb.toString();
+    }
+
+    // 清空统计数据
+    public static void resetStats() {
+        STATS.clear();
+    }
+
+    // 关闭客户端（getInstance返回的共享客户端由配置变更/卸载自动关闭，无需手动调用）
+    public void close() {
+        if (unixTransport != null) {
+            unixTransport.close();
+        } else {
+            // 不阻塞调用方：在途请求完成后HttpClient释放连接和选择器线程
+            httpClient.shutdown();
+            clientExecutor.shutdown();
+        }
+    }
+
+
+    // 插件卸载时关闭客户端线程
+    public static void shutdown() {
+        synchronized (CryptoBridgeClient.class) {
+            if (instance != null) {
+                instance.close();
+                instance = null;
+            }
+        }
+    }
+
+    // 单个接口路径的延迟统计
+    public static class EndpointStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile long lastNanos;
+
+        void recordSuccess(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            lastNanos = nanos;
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordFailure() {
+            failures.increment();
+        }
+
+        public long getCount() { return count.sum(); }
+        public long getFailures() { return failures.sum(); }
+        public double getAvgMillis() {
+            long c = count.sum();
+            return c == 0 ? 0 : totalNanos.sum() / (double) c / 1_000_000.0;
+        }
+        public double getMaxMillis() { return maxNanos.get() / 1_000_000.0; }
+        public double getLastMillis() { return lastNanos / 1_000_000.0; }
+    }
+}
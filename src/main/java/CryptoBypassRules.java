@@ -0,0 +1,263 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 加解密跳过规则：在序列化数据包之前判断是否需要调用加解密接口
+ * 规则来自DnslogConfig，预编译后缓存，配置变化时重新编译：
+ * 请求方法、Content-Type前缀、路径正则、body大小上限、body前缀（魔数）、无body且无参数的GET
+ * 每个数据包只在密文一侧判断一次（请求在解密前、响应在解密前），结果通过标记头带到加密阶段，
+ * 避免明文与密文的类型/大小/前缀不同导致解密后不再加密
+ */
+public class CryptoBypassRules {
+    // 命中跳过规则时写入JaysenReqReceived/JaysenRespReceived标记头的值
+    public static final String SKIPPED = "skip";
+    private static volatile CryptoBypassRules current;
+    // 按原因统计的跳过次数（跨配置保留）
+    private static final Map<String, LongAdder> AVOIDED = new ConcurrentHashMap<>();
+
+    private final String signature;
+    private final boolean enabled;
+    private final Set<String> methods;
+    private final List<String> contentTypes;
+    private final Pattern pathPattern;
+    private final long maxBodyBytes;
+    private final List<byte[]> bodyPrefixes;
+    private final boolean skipEmptyGet;
+    private final int longestPrefix;
+
+    private CryptoBypassRules(DnslogConfig config, String signature) {
+        this.signature = signature;
+        this.enabled = config.cryptoBypassEnabled;
+        this.methods = new HashSet<>();
+        for (String method : split(config.cryptoBypassMethods)) {
+            methods.add(method.toUpperCase(Locale.ROOT));
+        }
+        this.contentTypes = new ArrayList<>();
+        for (String type : split(config.cryptoBypassContentTypes)) {
+            contentTypes.add(type.toLowerCase(Locale.ROOT));
+        }
+        Pattern pattern = null;
+        String regex = config.cryptoBypassPathRegex == null ? "" : config.cryptoBypassPathRegex.trim();
+        if (!regex.isEmpty()) {
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        }
+        this.pathPattern = pattern;
+        this.maxBodyBytes = config.cryptoBypassMaxBodyBytes;
+        this.bodyPrefixes = new ArrayList<>();
+        int longest = 0;
+        for (String prefix : split(config.cryptoBypassBodyPrefixes)) {
+            byte[] bytes = prefix.getBytes(StandardCharsets.ISO_8859_1);
+            bodyPrefixes.add(bytes);
+            longest = Math.max(longest, bytes.length);
+        }
+        this.longestPrefix = longest;
+        this.skipEmptyGet = config.cryptoBypassEmptyGet;
+    }
+
+    // 获取当前配置对应的规则（配置变化时重新编译）
+    public static CryptoBypassRules current() {
+        DnslogConfig config = DnslogConfig.getInstance();
+        String signature = signatureOf(config);
+        CryptoBypassRules rules = current;
+        if (rules == null || !rules.signature.equals(signature)) {
+            synchronized (CryptoBypassRules.class) {
+                rules = current;
+                if (rules == null || !rules.signature.equals(signature)) {
+                    rules = new CryptoBypassRules(config, signature);
+                    current = rules;
+                }
+            }
+        }
+        return rules;
+    }
+
+    private static String signatureOf(DnslogConfig config) {
+        return config.cryptoBypassEnabled + "|" + config.cryptoBypassMethods + "|" + config.cryptoBypassContentTypes
+                + "|" + config.cryptoBypassPathRegex + "|" + config.cryptoBypassMaxBodyBytes
+                + "|" + config.cryptoBypassBodyPrefixes + "|" + config.cryptoBypassEmptyGet;
+    }
+
+    // 校验路径正则，格式错误时返回错误信息，否则返回null
+    public static String validatePathRegex(String regex) {
+        try {
+            if (regex != null && !regex.trim().isEmpty()) {
+                Pattern.compile(regex.trim());
+            }
+            return null;
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * 判断密文请求是否无需调用解密接口（全部规则）
+     * @return 跳过原因，需要调用接口时返回null
+     */
+    public String bypassReason(HttpRequest request) {
+        String reason = requestLineReason(request);
+        if (reason != null || !enabled) {
+            return reason;
+        }
+        return checkContent(request.headerValue("Content-Type"), request.body());
+    }
+
+    /**
+     * 判断明文请求是否无需调用加密接口
+     * 经过代理解密的请求直接沿用解密阶段的结果；没有标记的请求（Repeater等手工构造）只按方法/路径判断，
+     * 明文的类型和大小不参与判断（扫描payload可能使body超过上限）
+     * @return 跳过原因，需要调用接口时返回null
+     */
+    public String encryptBypassReason(HttpRequest request) {
+        String marker = request.headerValue("JaysenReqReceived");
+        if (SKIPPED.equals(marker)) {
+            return "解密阶段已跳过";
+        }
+        if ("true".equals(marker)) {
+            return null;
+        }
+        return requestLineReason(request);
+    }
+
+    // 只依赖请求行的规则：方法、路径、无参数GET
+    private String requestLineReason(HttpRequest request) {
+        if (!enabled) {
+            return null;
+        }
+        String method = request.method().toUpperCase(Locale.ROOT);
+        if (methods.contains(method)) {
+            return count("方法 " + method);
+        }
+        if (pathPattern != null && pathPattern.matcher(request.path()).find()) {
+            return count("路径规则");
+        }
+        ByteArray body = request.body();
+        if (skipEmptyGet && "GET".equals(method) && body.length() == 0 && !hasUrlParameters(request)) {
+            return count("无参数GET");
+        }
+        return null;
+    }
+
+    /**
+     * 判断响应是否无需调用加解密接口（空body的响应始终跳过）
+     * @return 跳过原因，需要调用接口时返回null
+     */
+    public String bypassReason(HttpResponse response) {
+        if (!enabled) {
+            return null;
+        }
+        ByteArray body = response.body();
+        if (body.length() == 0) {
+            return count("空响应体");
+        }
+        return checkContent(response.headerValue("Content-Type"), body);
+    }
+
+    private String checkContent(String contentType, ByteArray body) {
+        if (contentType != null && !contentTypes.isEmpty()) {
+            String lower = contentType.toLowerCase(Locale.ROOT).trim();
+            for (String type : contentTypes) {
+                if (lower.startsWith(type)) {
+                    return count("类型 " + type);
+                }
+            }
+        }
+        if (maxBodyBytes > 0 && body.length() > maxBodyBytes) {
+            return count("body过大");
+        }
+        if (longestPrefix > 0 && body.length() > 0) {
+            // 只取出最长前缀长度的字节进行比较
+            byte[] head = body.subArray(0, Math.min(body.length(), longestPrefix)).getBytes();
+            for (byte[] prefix : bodyPrefixes) {
+                if (startsWith(head, prefix)) {
+                    return count("body前缀");
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasUrlParameters(HttpRequest request) {
+        if (!request.path().contains("?")) {
+            return false;
+        }
+        for (ParsedHttpParameter parameter : request.parameters()) {
+            if (parameter.type() == HttpParameterType.URL) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        if (prefix.length == 0 || data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String count(String reason) {
+        AVOIDED.computeIfAbsent(reason, k -> new LongAdder()).increment();
+        return reason;
+    }
+
+    private static List<String> split(String value) {
+        List<String> result = new ArrayList<>();
+        if (value == null) {
+            return result;
+        }
+        for (String item : value.split(",")) {
+            String trimmed = item.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    // 格式化跳过统计，供UI展示
+    public static String formatStats() {
+        if (AVOIDED.isEmpty()) {
+            return "跳过规则 暂未跳过任何加解密调用\n";
+        }
+        long total = 0;
+        StringBuilder detail = new StringBuilder();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(AVOIDED).entrySet()) {
+            long value = entry.getValue().sum();
+            total += value;
+            detail.append(' ').append(entry.getKey()).append('=').append(value);
+        }
+        return "跳过规则 共避免调用=" + total + " （" + detail.toString().trim() + "）\n";
+    }
+}
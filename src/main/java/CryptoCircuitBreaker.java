@@ -0,0 +1,185 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.IOException;
+
+/**
+ * 加解密接口熔断器
+ * 1. 关闭（正常）：统计最近若干次调用，失败或慢调用比例超过阈值时打开
+ * 2. 打开（熔断）：直接抛出OpenException，调用方立即放行原数据包，不再等待超时
+ * 3. 半开：熔断时长结束后放行一次真实调用作为探测，成功则恢复，失败则继续熔断
+ */
+public class CryptoCircuitBreaker {
+    // 统计窗口大小（最近调用次数）
+    private static final int WINDOW_SIZE = 20;
+    // 窗口内至少有这么多次调用才判断是否熔断
+    private static final int MIN_CALLS = 5;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // 熔断期间的快速失败异常（调用方无需记录日志）
+    public static class OpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public OpenException() {
+            super("加解密接口已熔断，暂时放行原数据包");
+        }
+    }
+
+    private final boolean enabled;
+    private final int failureRatePercent;
+    private final long slowCallNanos;
+    private final long openMillis;
+    // 探测调用的超时时间：超过该时间仍未返回结果时视为探测失败，允许下一次探测
+    private final long probeTimeoutMillis;
+    // 环形窗口：true表示失败或慢调用
+    private final boolean[] outcomes = new boolean[WINDOW_SIZE];
+    private int index;
+    private int count;
+    private int badCount;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long probeStartedAt;
+    private long tripCount;
+    private String lastReason = "";
+
+    public CryptoCircuitBreaker(DnslogConfig config) {
+        this.enabled = config.cryptoBreakerEnabled;
+        this.failureRatePercent = Math.max(1, Math.min(100, config.cryptoBreakerFailureRate));
+        this.slowCallNanos = Math.max(1, config.cryptoBreakerSlowMs) * 1_000_000L;
+        this.openMillis = Math.max(1, config.cryptoBreakerOpenMs);
+        // 一次调用最多等待连接许可和读取响应各一个读取超时
+        this.probeTimeoutMillis = 2L * Math.max(1, config.cryptoReadTimeoutMs) + 1000;
+    }
+
+    // 调用前检查，熔断中抛出OpenException
+    public synchronized void acquire() throws OpenException {
+        if (!enabled) {
+            return;
+        }
+        switch (state) {
+            case CLOSED -> {
+            }
+            case OPEN -> {
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    throw new OpenException();
+                }
+                // 熔断时长结束，放行一次探测调用
+                state = State.HALF_OPEN;
+                startProbe();
+            }
+            case HALF_OPEN -> {
+                if (probeInFlight && System.currentTimeMillis() - probeStartedAt < probeTimeoutMillis) {
+                    throw new OpenException();
+                }
+                // 上一次探测超时仍未返回（结果已丢失），重新放行一次探测
+                startProbe();
+            }
+        }
+    }
+
+    private void startProbe() {
+        probeInFlight = true;
+        probeStartedAt = System.currentTimeMillis();
+    }
+
+    // 记录成功调用（超过慢调用阈值按失败计）
+    public synchronized void onSuccess(long nanos) {
+        if (!enabled) {
+            return;
+        }
+        boolean slow = nanos > slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (slow) {
+                trip("探测调用过慢");
+            } else {
+                reset();
+            }
+            return;
+        }
+        record(slow, "慢调用比例过高");
+    }
+
+    // 记录失败调用
+    public synchronized void onFailure(String reason) {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            trip("探测失败：" + reason);
+            return;
+        }
+        record(true, reason);
+    }
+
+    // 调用被中断等不计入统计的情况，释放探测名额
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    private void record(boolean bad, String reason) {
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (count == WINDOW_SIZE && outcomes[index]) {
+            badCount--;
+        }
+        outcomes[index] = bad;
+        index = (index + 1) % WINDOW_SIZE;
+        count = Math.min(WINDOW_SIZE, count + 1);
+        if (bad) {
+            badCount++;
+        }
+        if (count >= MIN_CALLS && badCount * 100 >= failureRatePercent * count) {
+            trip(reason);
+        }
+    }
+
+    private void trip(String reason) {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        tripCount++;
+        lastReason = reason == null ? "" : reason;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        index = 0;
+        count = 0;
+        badCount = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // 状态描述，供UI展示
+    public synchronized String describe() {
+        if (!enabled) {
+            return "熔断器未启用";
+        }
+        return switch (state) {
+            case CLOSED -> String.format("正常（最近%d次调用失败/慢调用%d次，累计熔断%d次）", count, badCount, tripCount);
+            case OPEN -> {
+                long remaining = Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+                yield String.format("熔断中，%.1f秒后探测（%s）", remaining / 1000.0, lastReason);
+            }
+            case HALF_OPEN -> "半开，正在探测接口";
+        };
+    }
+}
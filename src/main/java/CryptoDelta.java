@@ -0,0 +1,199 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 加解密结果相对原数据包的差异
+ * 只对发生变化的请求头、参数、方法和body做修改，每类修改用一次批量调用完成；
+ * 没有任何变化时直接返回原对象，不产生新的数据包
+ */
+public class CryptoDelta {
+    // 接口显式声明“未修改”时使用的字段
+    public static final String UNCHANGED_FLAG = "unchanged";
+
+    private final List<HttpHeader> removedHeaders = new ArrayList<>();
+    private final List<HttpHeader> updatedHeaders = new ArrayList<>();
+    private final List<HttpHeader> addedHeaders = new ArrayList<>();
+    private final List<HttpParameter> removedParameters = new ArrayList<>();
+    private final List<HttpParameter> updatedParameters = new ArrayList<>();
+    private final List<HttpParameter> addedParameters = new ArrayList<>();
+    private String method; // 为null表示未修改
+    private String body;   // 为null表示未修改
+    private ByteArray rawBody; // 二进制协议返回的body字节，为null表示未修改
+
+    private CryptoDelta() {
+    }
+
+    // 计算请求的差异（original为发送给引擎的数据，result为引擎返回的数据）
+    public static CryptoDelta forRequest(Map<String, Object> original, Map<String, Object> result) {
+        CryptoDelta delta = new CryptoDelta();
+        if (isUnchanged(result)) {
+            return delta;
+        }
+        delta.diffHeaders(original, result);
+        Map<String, Object> oldParams = asMap(original.get("paramters"));
+        Map<String, Object> newParams = asMap(result.get("paramters"));
+        if (newParams != null) {
+            for (Map.Entry<String, Object> entry : newParams.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    continue;
+                }
+                String value = String.valueOf(entry.getValue());
+                Object oldValue = oldParams == null ? null : oldParams.get(entry.getKey());
+                if (oldValue == null) {
+                    delta.addedParameters.add(HttpParameter.urlParameter(entry.getKey(), value));
+                } else if (!value.equals(String.valueOf(oldValue))) {
+                    delta.updatedParameters.add(HttpParameter.urlParameter(entry.getKey(), value));
+                }
+            }
+            if (oldParams != null) {
+                for (Map.Entry<String, Object> entry : oldParams.entrySet()) {
+                    if (!newParams.containsKey(entry.getKey())) {
+                        delta.removedParameters.add(HttpParameter.urlParameter(entry.getKey(), String.valueOf(entry.getValue())));
+                    }
+                }
+            }
+        }
+        Object newMethod = result.get("method");
+        if (newMethod != null && !newMethod.equals(original.get("method"))) {
+            delta.method = String.valueOf(newMethod);
+        }
+        delta.diffBody(original, result);
+        return delta;
+    }
+
+    // 计算响应的差异
+    public static CryptoDelta forResponse(Map<String, Object> original, Map<String, Object> result) {
+        CryptoDelta delta = new CryptoDelta();
+        if (isUnchanged(result)) {
+            return delta;
+        }
+        delta.diffHeaders(original, result);
+        delta.diffBody(original, result);
+        return delta;
+    }
+
+    private static boolean isUnchanged(Map<String, Object> result) {
+        return result == null || Boolean.TRUE.equals(result.get(UNCHANGED_FLAG));
+    }
+
+    // 请求头差异：返回结果中缺少headers字段视为未修改
+    private void diffHeaders(Map<String, Object> original, Map<String, Object> result) {
+        Map<String, Object> newHeaders = asMap(result.get("headers"));
+        if (newHeaders == null) {
+            return;
+        }
+        Map<String, Object> oldHeaders = asMap(original.get("headers"));
+        for (Map.Entry<String, Object> entry : newHeaders.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            String value = String.valueOf(entry.getValue());
+            Object oldValue = oldHeaders == null ? null : oldHeaders.get(entry.getKey());
+            if (oldValue == null) {
+                addedHeaders.add(HttpHeader.httpHeader(entry.getKey(), value));
+            } else if (!value.equals(String.valueOf(oldValue))) {
+                updatedHeaders.add(HttpHeader.httpHeader(entry.getKey(), value));
+            }
+        }
+        if (oldHeaders != null) {
+            for (Map.Entry<String, Object> entry : oldHeaders.entrySet()) {
+                Object newValue = newHeaders.get(entry.getKey());
+                if (newValue == null) {
+                    removedHeaders.add(HttpHeader.httpHeader(entry.getKey(), String.valueOf(entry.getValue())));
+                }
+            }
+        }
+    }
+
+    // body差异：返回结果中缺少body字段视为未修改
+    private void diffBody(Map<String, Object> original, Map<String, Object> result) {
+        Object newBody = result.get("body");
+        if (newBody != null && !newBody.equals(original.get("body"))) {
+            body = String.valueOf(newBody);
+        }
+    }
+
+    // 使用二进制协议返回的原始字节替换body（优先于字符串body）
+    public void replaceBody(ByteArray bytes) {
+        rawBody = bytes;
+        body = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    // 差异中新增、修改或删除的请求头名称（小写）
+    public Set<String> touchedHeaders() {
+        Set<String> names = new HashSet<>();
+        for (List<HttpHeader> headers : List.of(removedHeaders, updatedHeaders, addedHeaders)) {
+            for (HttpHeader header : headers) {
+                names.add(header.name().toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    // 是否没有任何修改
+    public boolean isEmpty() {
+        return method == null && body == null && rawBody == null
+                && removedHeaders.isEmpty() && updatedHeaders.isEmpty() && addedHeaders.isEmpty()
+                && removedParameters.isEmpty() && updatedParameters.isEmpty() && addedParameters.isEmpty();
+    }
+
+    // 将差异应用到请求上（无修改时返回原对象）
+    public HttpRequest applyTo(HttpRequest request) {
+        if (isEmpty()) {
+            return request;
+        }
+        HttpRequest newRequest = request;
+        if (!removedHeaders.isEmpty()) newRequest = newRequest.withRemovedHeaders(removedHeaders);
+        if (!updatedHeaders.isEmpty()) newRequest = newRequest.withUpdatedHeaders(updatedHeaders);
+        if (!addedHeaders.isEmpty()) newRequest = newRequest.withAddedHeaders(addedHeaders);
+        if (!removedParameters.isEmpty()) newRequest = newRequest.withRemovedParameters(removedParameters);
+        if (!updatedParameters.isEmpty()) newRequest = newRequest.withUpdatedParameters(updatedParameters);
+        if (!addedParameters.isEmpty()) newRequest = newRequest.withAddedParameters(addedParameters);
+        if (method != null) newRequest = newRequest.withMethod(method);
+        // body最后修改，Content-Length随之更新
+        if (body != null) newRequest = newRequest.withBody(body);
+        if (rawBody != null) newRequest = newRequest.withBody(rawBody);
+        return newRequest;
+    }
+
+    // 将差异应用到响应上（无修改时返回原对象）
+    public HttpResponse applyTo(HttpResponse response) {
+        if (isEmpty()) {
+            return response;
+        }
+        HttpResponse newResponse = response;
+        if (!removedHeaders.isEmpty()) newResponse = newResponse.withRemovedHeaders(removedHeaders);
+        if (!updatedHeaders.isEmpty()) newResponse = newResponse.withUpdatedHeaders(updatedHeaders);
+        if (!addedHeaders.isEmpty()) newResponse = newResponse.withAddedHeaders(addedHeaders);
+        if (body != null) newResponse = newResponse.withBody(body);
+        if (rawBody != null) newResponse = newResponse.withBody(rawBody);
+        return newResponse;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 加解密引擎接口
+ * stage 取值：RequestReceived / RequestToBeSent / ResponseReceived / ResponseToBeSent
+ * 实现类出错时直接抛出异常，由调用方记录日志并放行原数据包
+ */
+public interface CryptoEngine {
+
+    // 引擎名称（用于日志和界面展示）
+    String name();
+
+    // 计算请求数据包的加解密差异
+    CryptoDelta requestDelta(HttpRequest request, String stage) throws Exception;
+
+    // 计算响应数据包的加解密差异
+    CryptoDelta responseDelta(HttpResponse response, String stage) throws Exception;
+
+    // 处理请求数据包
+    default HttpRequest processRequest(HttpRequest request, String stage) throws Exception {
+        return requestDelta(request, stage).applyTo(request);
+    }
+
+    // 处理响应数据包
+    default HttpResponse processResponse(HttpResponse response, String stage) throws Exception {
+        return responseDelta(response, stage).applyTo(response);
+    }
+
+    // 引擎版本号，加解密逻辑变化（如脚本重新加载）时递增，用于作废结果缓存
+    default long generation() {
+        return 0;
+    }
+
+    // 批量处理请求数据包，返回结果与输入一一对应（默认逐个处理）
+    default List<HttpRequest> processRequests(List<HttpRequest> requests, String stage) throws Exception {
+        List<HttpRequest> results = new ArrayList<>(requests.size());
+        for (HttpRequest request : requests) {
+            results.add(processRequest(request, stage));
+        }
+        return results;
+    }
+}
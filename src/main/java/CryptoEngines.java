@@ -0,0 +1,51 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+
+/**
+ * 加解密引擎工厂：根据配置返回当前使用的引擎，配置变化时自动切换
+ */
+public class CryptoEngines {
+    public static final String TYPE_HTTP = "http";
+    public static final String TYPE_SCRIPT = "script";
+
+    private static volatile CryptoEngine current;
+    private static volatile String currentSignature;
+
+    private CryptoEngines() {
+    }
+
+    // 获取当前配置对应的加解密引擎
+    public static CryptoEngine current() {
+        DnslogConfig config = DnslogConfig.getInstance();
+        String signature = config.cryptoEngineType + "|" + config.cryptoScriptPath + "|" + config.cryptoScriptClass;
+        CryptoEngine engine = current;
+        if (engine == null || !signature.equals(currentSignature)) {
+            synchronized (CryptoEngines.class) {
+                if (current == null || !signature.equals(currentSignature)) {
+                    current = create(config);
+                    currentSignature = signature;
+                }
+                engine = current;
+            }
+        }
+        return engine;
+    }
+
+    private static CryptoEngine create(DnslogConfig config) {
+        if (TYPE_SCRIPT.equals(config.cryptoEngineType)) {
+            return new ScriptCryptoEngine(config.cryptoScriptPath, config.cryptoScriptClass);
+        }
+        return new HttpBridgeCryptoEngine();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 加解密数据包的统一结构（各加解密引擎共用）
+ * 请求：{method, paramters, headers, body}；响应：{headers, body}
+ */
+public class CryptoEnvelope {
+
+    private CryptoEnvelope() {
+    }
+
+    // 构建请求数据（包含所有细节）
+    public static Map<String, Object> buildRequestData(HttpRequest request) {
+        Map<String, Object> data = buildRequestHead(request);
+        data.put("body", request.bodyToString()); // 原始请求体
+        return data;
+    }
+
+    // 构建不含body的请求数据（二进制协议中body单独按字节传输）
+    public static Map<String, Object> buildRequestHead(HttpRequest request) {
+        Map<String, Object> data = new HashMap<>();
+        Map<String, String> headersMap = new HashMap<>();
+        Map<String, String> parametersMap = new HashMap<>();
+        // 处理httpheaders
+        for (HttpHeader header : request.headers()) {
+            headersMap.put(header.name(), header.value());
+        }
+        // 处理url的Pramters
+        for (ParsedHttpParameter parameter : request.parameters()) {
+            if (parameter.type() == HttpParameterType.URL) {
+                parametersMap.put(parameter.name(), parameter.value());
+            }
+        }
+        data.put("paramters", parametersMap);
+        data.put("method", request.method());
+        data.put("headers", headersMap); // 所有请求头（键值对）
+        data.put("timestamp", System.currentTimeMillis());
+        return data;
+    }
+
+    // 复制数据（嵌套的headers/paramters一并复制），供可能直接修改入参的引擎保留原始数据
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> copyData(Map<String, Object> data) {
+        Map<String, Object> copy = new HashMap<>(data);
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                entry.setValue(new HashMap<>((Map<String, Object>) entry.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    // 将加解密结果以差异方式应用到请求上（original为发送给引擎的数据）
+    public static HttpRequest applyRequestData(HttpRequest request, Map<String, Object> original, Map<String, Object> result) {
+        return CryptoDelta.forRequest(original, result).applyTo(request);
+    }
+
+    // 构建响应数据
+    public static Map<String, Object> buildResponseData(HttpResponse response) {
+        Map<String, Object> data = buildResponseHead(response);
+        data.put("body", response.bodyToString()); // 原始响应体
+        return data;
+    }
+
+    // 构建不含body的响应数据
+    public static Map<String, Object> buildResponseHead(HttpResponse response) {
+        Map<String, Object> data = new HashMap<>();
+        Map<String, String> headersMap = new HashMap<>();
+        for (HttpHeader header : response.headers()) {
+            headersMap.put(header.name(), header.value());
+        }
+        data.put("headers", headersMap); // 所有响应头（键值对）
+        return data;
+    }
+}
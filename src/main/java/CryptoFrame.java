@@ -0,0 +1,118 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.core.ByteArray;
+import com.alibaba.fastjson2.JSON;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 二进制加解密协议的数据帧（body按原始字节传输，不做字符串/JSON转换）
+ * 帧格式：4字节大端信封长度 + 信封JSON（UTF-8，不含body） + body原始字节（直到流结束）
+ * 信封中 bodyIncluded=false 表示未携带body：请求中表示接口只处理请求头，响应中表示body未修改
+ */
+public class CryptoFrame {
+    public static final String CONTENT_TYPE = "application/x-jaysen-frame";
+    public static final String BODY_INCLUDED = "bodyIncluded";
+    // body分块发送的大小，避免把整个body再复制一份
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // 信封长度上限，防止异常数据导致超大数组分配
+    private static final int MAX_ENVELOPE_LENGTH = 16 * 1024 * 1024;
+
+    private final Map<String, Object> envelope;
+    private final byte[] body; // 为null表示未携带body
+
+    private CryptoFrame(Map<String, Object> envelope, byte[] body) {
+        this.envelope = envelope;
+        this.body = body;
+    }
+
+    public Map<String, Object> envelope() {
+        return envelope;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    // 编码后的请求体：分块数据（可重复遍历）与总长度
+    public record Encoded(Iterable<byte[]> chunks, long length) {
+        // 转为HttpClient的请求体，携带Content-Length
+        public BodyPublisher publisher() {
+            return BodyPublishers.fromPublisher(BodyPublishers.ofByteArrays(chunks), length);
+        }
+    }
+
+    /**
+     * 编码请求体：信封一次性编码，body按块惰性复制后流式发送
+     * @param envelope 信封数据（会写入bodyIncluded字段）
+     * @param body 原始body，为null时不携带
+     */
+    public static Encoded encode(Map<String, Object> envelope, ByteArray body) {
+        envelope.put(BODY_INCLUDED, body != null);
+        byte[] head = JSON.toJSONString(envelope).getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = ByteBuffer.allocate(4).putInt(head.length).array();
+        int bodyLength = body == null ? 0 : body.length();
+        Iterable<byte[]> chunks = () -> new Iterator<>() {
+            private int part = 0; // 0:长度前缀 1:信封 2及以后:body分块
+            private int offset = 0;
+
+            @Override
+            public boolean hasNext() {
+                return part < 2 || offset < bodyLength;
+            }
+
+            @Override
+            public byte[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (part < 2) {
+                    return part++ == 0 ? prefix : head;
+                }
+                int end = Math.min(bodyLength, offset + CHUNK_SIZE);
+                byte[] chunk = body.subArray(offset, end).getBytes();
+                offset = end;
+                return chunk;
+            }
+        };
+        return new Encoded(chunks, prefix.length + head.length + (long) bodyLength);
+    }
+
+    // 从响应流中读取一帧
+    public static CryptoFrame read(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        int length = dataIn.readInt();
+        if (length < 0 || length > MAX_ENVELOPE_LENGTH) {
+            throw new IOException("加解密接口返回的信封长度异常：" + length);
+        }
+        byte[] head = dataIn.readNBytes(length);
+        if (head.length != length) {
+            throw new IOException("加解密接口返回的数据帧不完整");
+        }
+        Map<String, Object> envelope = JSON.parseObject(new String(head, StandardCharsets.UTF_8));
+        if (envelope == null) {
+            throw new IOException("加解密接口返回的信封为空");
+        }
+        byte[] body = Boolean.TRUE.equals(envelope.get(BODY_INCLUDED)) ? dataIn.readAllBytes() : null;
+        return new CryptoFrame(envelope, body);
+    }
+}
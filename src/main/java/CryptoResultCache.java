@@ -0,0 +1,243 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 加解密结果缓存（按内容寻址，默认关闭）
+ * 以（阶段、方法、路径/状态码、指定请求头、body）的SHA-256为键缓存引擎返回的差异，
+ * 相同密文重复出现时（Repeater重放、轮询接口、扫描请求的响应等）不再调用加解密接口。
+ * 差异修改了未参与缓存键的请求头时不缓存（如根据时间戳头计算的签名），避免把第一个数据包的请求头修改套用到其他数据包；
+ * Content-Length由body决定，不受此限制。
+ * 只应对确定性的加解密阶段开启；使用随机数/时间戳的方案请勿开启对应阶段。
+ * 加解密配置或脚本变化后缓存立即清空，不会返回旧配置下的结果。
+ */
+public class CryptoResultCache {
+    // 缓存条目：访问顺序的LinkedHashMap实现LRU
+    private static final LinkedHashMap<String, Entry> CACHE = new LinkedHashMap<>(256, 0.75f, true);
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+    // 缓存内容对应的配置指纹
+    private static String fingerprint = "";
+    // 已解析的配置（配置变化时重新解析）
+    private static String parsedSignature;
+    private static Set<String> enabledStages = Set.of();
+    private static Set<String> keyHeaders = Set.of();
+
+    private CryptoResultCache() {
+    }
+
+    private record Entry(CryptoDelta delta, long expireAt) {
+    }
+
+    // 计算请求的加解密差异，命中缓存时直接返回
+    public static CryptoDelta requestDelta(CryptoEngine engine, HttpRequest request, String stage) throws Exception {
+        String currentFingerprint = fingerprintOf(engine, stage);
+        if (currentFingerprint == null) {
+            return engine.requestDelta(request, stage);
+        }
+        MessageDigest digest = newDigest(stage);
+        update(digest, request.method());
+        update(digest, request.path());
+        updateHeaders(digest, request.headers());
+        digest.update(request.body().getBytes());
+        return lookup(currentFingerprint, digest, () -> engine.requestDelta(request, stage));
+    }
+
+    // 计算响应的加解密差异，命中缓存时直接返回
+    public static CryptoDelta responseDelta(CryptoEngine engine, HttpResponse response, String stage) throws Exception {
+        String currentFingerprint = fingerprintOf(engine, stage);
+        if (currentFingerprint == null) {
+            return engine.responseDelta(response, stage);
+        }
+        MessageDigest digest = newDigest(stage);
+        update(digest, String.valueOf(response.statusCode()));
+        updateHeaders(digest, response.headers());
+        digest.update(response.body().getBytes());
+        return lookup(currentFingerprint, digest, () -> engine.responseDelta(response, stage));
+    }
+
+    private interface DeltaLoader {
+        CryptoDelta load() throws Exception;
+    }
+
+    private static CryptoDelta lookup(String currentFingerprint, MessageDigest digest, DeltaLoader loader) throws Exception {
+        String key = HexFormat.of().formatHex(digest.digest());
+        long now = System.currentTimeMillis();
+        synchronized (CryptoResultCache.class) {
+            if (!currentFingerprint.equals(fingerprint)) {
+                // 配置或脚本发生变化，旧结果全部作废
+                CACHE.clear();
+                fingerprint = currentFingerprint;
+            }
+            Entry entry = CACHE.get(key);
+            if (entry != null && entry.expireAt > now) {
+                HITS.increment();
+                return entry.delta;
+            }
+            if (entry != null) {
+                CACHE.remove(key);
+                EVICTIONS.increment();
+            }
+        }
+        MISSES.increment();
+        CryptoDelta delta = loader.load();
+        if (!isCacheable(delta)) {
+            return delta;
+        }
+        DnslogConfig config = DnslogConfig.getInstance();
+        long expireAt = now + Math.max(1, config.cryptoCacheTtlSeconds) * 1000L;
+        int maxEntries = Math.max(1, config.cryptoCacheMaxEntries);
+        synchronized (CryptoResultCache.class) {
+            // 加载期间配置可能已变化，此时不再写入
+            if (currentFingerprint.equals(fingerprint)) {
+                CACHE.put(key, new Entry(delta, expireAt));
+                Iterator<Map.Entry<String, Entry>> iterator = CACHE.entrySet().iterator();
+                while (CACHE.size() > maxEntries && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                    EVICTIONS.increment();
+                }
+            }
+        }
+        return delta;
+    }
+
+    // 差异修改的请求头都参与了缓存键计算时才可缓存
+    private static boolean isCacheable(CryptoDelta delta) {
+        Set<String> names;
+        synchronized (CryptoResultCache.class) {
+            names = keyHeaders;
+        }
+        for (String header : delta.touchedHeaders()) {
+            if (!names.contains(header) && !"content-length".equals(header)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前阶段可缓存时返回配置指纹，否则返回null
+     * 指纹包含所有加解密配置以及引擎的版本号（脚本重新加载后版本号变化）
+     */
+    private static String fingerprintOf(CryptoEngine engine, String stage) {
+        DnslogConfig config = DnslogConfig.getInstance();
+        if (!config.cryptoCacheEnabled) {
+            return null;
+        }
+        String signature = config.cryptoEngineType + "|" + config.cryptoApiUrl + "|" + config.cryptoWireFormat
+                + "|" + config.cryptoScriptPath + "|" + config.cryptoScriptClass
+                + "|" + config.cryptoCacheStages + "|" + config.cryptoCacheKeyHeaders;
+        synchronized (CryptoResultCache.class) {
+            if (!signature.equals(parsedSignature)) {
+                enabledStages = splitToSet(config.cryptoCacheStages, false);
+                keyHeaders = splitToSet(config.cryptoCacheKeyHeaders, true);
+                parsedSignature = signature;
+            }
+            if (!enabledStages.contains(stage)) {
+                return null;
+            }
+        }
+        return signature + "|" + engine.name() + "|" + engine.generation();
+    }
+
+    private static Set<String> splitToSet(String value, boolean lowerCase) {
+        Set<String> result = new HashSet<>();
+        if (value == null) {
+            return result;
+        }
+        for (String item : value.split(",")) {
+            String trimmed = item.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(lowerCase ? trimmed.toLowerCase() : trimmed);
+            }
+        }
+        return result;
+    }
+
+    private static MessageDigest newDigest(String stage) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, stage);
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 写入字段并以0字节分隔，避免字段拼接产生歧义
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    // 只有配置的请求头参与计算（按名称排序，名称不区分大小写）
+    private static void updateHeaders(MessageDigest digest, List<HttpHeader> headers) {
+        Set<String> names;
+        synchronized (CryptoResultCache.class) {
+            names = keyHeaders;
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+        TreeSet<String> selected = new TreeSet<>();
+        for (HttpHeader header : headers) {
+            String name = header.name().toLowerCase();
+            if (names.contains(name)) {
+                selected.add(name + ":" + header.value());
+            }
+        }
+        for (String header : selected) {
+            update(digest, header);
+        }
+    }
+
+    // 清空缓存和统计
+    public static void clear() {
+        synchronized (CryptoResultCache.class) {
+            CACHE.clear();
+        }
+        HITS.reset();
+        MISSES.reset();
+        EVICTIONS.reset();
+    }
+
+    // 格式化统计数据，供UI展示
+    public static String formatStats() {
+        long hits = HITS.sum();
+        long misses = MISSES.sum();
+        int size;
+        synchronized (CryptoResultCache.class) {
+            size = CACHE.size();
+        }
+        double hitRate = hits + misses == 0 ? 0 : hits * 100.0 / (hits + misses);
+        return String.format("结果缓存 命中=%d 未命中=%d 命中率=%.1f%% 淘汰=%d 当前条数=%d%n",
+                hits, misses, hitRate, EVICTIONS.sum(), size);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 去重缓存：记录已扫描过的目标，每个条目单独过期（TTL），超过容量时淘汰最久未访问的条目（LRU）
+ * 1. 键为64位哈希值，不保存拼接后的URL字符串
+ * 2. claim() 原子地“检查并占用”，并发请求同一目标时只有一个能占用成功
+ * 3. 过期时间带±10%的随机抖动，避免大量条目同时过期后集中重新扫描
+ * 按键分段加锁，各段是访问顺序的LinkedHashMap
+ */
+public class DedupCache {
+    private static final int SEGMENTS = 16;
+    // 每次占用时顺带检查的过期条目数
+    private static final int PURGE_BATCH = 8;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public DedupCache(int maxEntries) {
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    // 由多个部分计算64位键（FNV-1a，部分之间以0分隔）
+    public static long key(String... parts) {
+        long hash = 0xcbf29ce484222325L;
+        for (String part : parts) {
+            for (byte b : part.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // 混合高低位，保证分段分布均匀
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 占用键：不存在或已过期时记录并返回true（调用方执行扫描），否则返回false
+     * @param ttlMillis 条目有效期，过期后可再次占用
+     */
+    public boolean claim(long key, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        long jitter = ttlMillis / 10 > 0 ? ThreadLocalRandom.current().nextLong(-ttlMillis / 10, ttlMillis / 10 + 1) : 0;
+        Segment segment = segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+        boolean claimed;
+        synchronized (segment) {
+            segment.purgeExpired(now);
+            Long expireAt = segment.map.get(key);
+            claimed = expireAt == null || expireAt <= now;
+            if (claimed) {
+                segment.map.put(key, now + ttlMillis + jitter);
+            }
+        }
+        claims.increment();
+        if (!claimed) {
+            duplicates.increment();
+        }
+        return claimed;
+    }
+
+    // 释放键（如任务未能提交时），之后可再次占用
+    public void release(long key) {
+        Segment segment = segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            segment.map.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.map.clear();
+            }
+        }
+    }
+
+    public String formatStats() {
+        return String.format("去重缓存：条目=%d 检查=%d 重复跳过=%d 容量淘汰=%d", size(), claims.sum(),
+                duplicates.sum(), evictions.sum());
+    }
+
+    private class Segment {
+        private final LinkedHashMap<Long, Long> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        // 从最久未访问的一端清理少量过期条目，避免过期条目一直占用容量
+        void purgeExpired(long now) {
+            Iterator<Map.Entry<Long, Long>> iterator = map.entrySet().iterator();
+            for (int i = 0; i < PURGE_BATCH && iterator.hasNext(); i++) {
+                if (iterator.next().getValue() <= now) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
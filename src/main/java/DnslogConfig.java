@@ -64,8 +64,66 @@ public class DnslogConfig {
     public String springScanFilePath = System.getProperty("user.home") + "/.burp/springapiscan.txt";
     // 存储读取到的Spring路径列表（供外部调用）
     private List<String> springPaths;
+    // Spring路径字典的哈希（持久化去重索引使用），加载路径列表时重新计算
+    private volatile String springPathsVersion = "";
+    // payload包目录（*.json，修改后自动重新加载）
+    public String payloadPackDir = System.getProperty("user.home") + "/.burp/jaysenscan-payloads";
+    public int scanPayloadCostBudget = 0; // 单次扫描选取的payload成本上限，0表示不限制
     public boolean cryptoEnabled = false; // 是否启用接口加解密（默认关闭）
     public String cryptoApiUrl = "http://127.0.0.1:5000"; // 加解密接口链接（默认值）
+    public int cryptoPoolSize = 16; // 加解密接口最大在途请求数（同时进行的调用数上限，连接由HttpClient管理）
+    public int cryptoConnectTimeoutMs = 5000; // 加解密接口连接超时（毫秒）
+    public int cryptoReadTimeoutMs = 5000; // 加解密接口读取超时（毫秒）
+    public boolean cryptoHttp2Enabled = false; // 是否尝试HTTP/2（h2c）连接加解密接口
+    public boolean cryptoBatchEnabled = false; // 扫描时是否通过批量接口预先加密整组payload
+    public int cryptoBatchSize = 50; // 单次批量加密的最大请求数
+    public String cryptoWireFormat = "json"; // 加解密接口传输格式：json / binary（二进制分帧，body按原始字节传输）
+    public String cryptoEngineType = "http"; // 加解密引擎：http（外部接口）/ script（进程内脚本）
+    public String cryptoScriptPath = ""; // 进程内加解密脚本路径（.groovy/.js等JSR-223脚本或.jar）
+    public String cryptoScriptClass = ""; // 使用.jar时的实现类名（需实现BiFunction）
+    public boolean cryptoCacheEnabled = false; // 是否缓存加解密结果（仅适用于确定性加解密）
+    public String cryptoCacheStages = "RequestReceived,ResponseReceived"; // 启用结果缓存的阶段（逗号分隔）
+    public String cryptoCacheKeyHeaders = "Content-Type"; // 参与缓存键计算的请求头（逗号分隔）
+    public int cryptoCacheMaxEntries = 1000; // 结果缓存最大条数
+    public int cryptoCacheTtlSeconds = 300; // 结果缓存有效期（秒）
+    public boolean cryptoBreakerEnabled = true; // 加解密接口宕机或过慢时是否熔断（熔断期间直接放行原数据包）
+    public int cryptoBreakerFailureRate = 50; // 触发熔断的失败/慢调用比例（百分比）
+    public int cryptoBreakerSlowMs = 2000; // 超过该耗时的调用视为慢调用（毫秒）
+    public int cryptoBreakerOpenMs = 10000; // 熔断持续时间，结束后放行一次探测调用（毫秒）
+    // 加解密跳过规则（命中任一规则的数据包不调用加解密接口）
+    public boolean cryptoBypassEnabled = true; // 是否启用跳过规则
+    public String cryptoBypassMethods = "OPTIONS"; // 跳过的请求方法（逗号分隔）
+    public String cryptoBypassContentTypes = "image/,font/,audio/,video/"; // 跳过的Content-Type前缀（逗号分隔，请求和响应均适用）
+    public String cryptoBypassPathRegex = "\\.(js|css|png|jpe?g|gif|ico|svg|woff2?|ttf|eot|map)(\\?|$)"; // 跳过的请求路径正则
+    public long cryptoBypassMaxBodyBytes = 0; // body超过该字节数时跳过（0为不限制）
+    public String cryptoBypassBodyPrefixes = ""; // body以这些前缀开头时跳过（逗号分隔，如 GIF8,%PDF,PK）
+    public boolean cryptoBypassEmptyGet = false; // 是否跳过无body且无URL参数的GET请求
+    // 扫描任务队列满时的处理策略：DROP_OLDEST（丢弃最旧的被动扫描）/ SPILL（暂存到积压队列）/ DROP_NEW（丢弃新任务）
+    public String scanOverflowPolicy = "DROP_OLDEST";
+    public int scanBacklogMax = 20000; // SPILL策略下积压队列的最大任务数
+    public String scanExecutorMode = "platform"; // 扫描执行模式：platform（平台线程池）/ virtual（虚拟线程，重新加载插件后生效）
+    public int scanMaxConcurrency = 256; // 虚拟线程模式下同时执行的扫描任务上限
+    public int scanPerHostConcurrency = 16; // 单个目标主机同时在途的扫描请求上限
+    public int scanPerHostTasks = 8; // 单个目标主机同时执行的扫描任务上限（协议+主机+端口区分主机）
+    public int scanPerHostQps = 0; // 单个目标主机每秒扫描请求上限，0表示不限制（开启自适应限速时不使用）
+    // 自适应限速：按429/503、连接失败和P90延迟调整每个目标主机的速率和并发（AIMD），默认关闭，开启后单主机速率不超过最大每秒请求数
+    public boolean scanAdaptiveEnabled = false;
+    public int scanAdaptiveMinQps = 1; // 自适应限速的最小每秒请求数
+    public int scanAdaptiveMaxQps = 50; // 自适应限速的最大每秒请求数
+    public int scanAdaptiveLatencyMs = 3000; // P90延迟超过该值（毫秒）时降低速率
+    public boolean scanJournalEnabled = false; // 记录扫描任务日志，重启后恢复未完成的任务（日志包含原始请求的Cookie等凭据，重新加载插件后生效）
+    public int scanJournalReplayQps = 2; // 恢复未完成任务时每秒提交的任务数
+    public boolean scanJournalCollaboratorSecret = false; // 任务日志中保存Collaborator客户端密钥（明文），重启后可继续查询回连记录
+    public int scanDedupTtlMinutes = 10; // 同一URL同类扫描的去重有效期（分钟），到期后允许重新扫描
+    public int scanDedupMaxEntries = 100000; // 去重缓存容量，超出时淘汰最久未访问的条目（重新加载插件后生效）
+    public boolean scanIndexEnabled = true; // 持久化已扫描端点（logPath/index），重启后或多个Burp实例间不再重复扫描
+    public int scanIndexExpiryHours = 72; // 持久化去重记录的有效期（小时）
+    public boolean scanRouteTemplateEnabled = false; // 按学习到的路由模板去重（数字/UUID/日期/哈希等路径段视为同一接口）
+    public int scanRouteVarThreshold = 20; // 同一位置末尾路径段的不同取值超过该数量时合并为变量
+    // Log4j/FastJSON注入点策略：ALL_IN_ONE（全部注入点同一请求）/ PER_POINT（每个注入点单独请求）/ BISECT（同一请求，被拦截时二分拆分）
+    public String scanInsertionStrategy = InsertionPoint.STRATEGY_ALL_IN_ONE;
+    public String scanInsertionTypes = "header,url,body,json"; // Log4j注入点类型：header,url,body,json,cookie,path
+    public int scanFastjsonRequestBudget = 100; // 单个端点FastJSON扫描的请求数上限（JSON请求体按嵌套对象注入），0表示不限制
 
     // 私有构造方法（防止外部实例化）
     private DnslogConfig() {
@@ -186,6 +244,12 @@ public class DnslogConfig {
             System.err.println("读取Spring扫描路径文件失败：" + e.getMessage());
             springPaths = new ArrayList<>(); // 异常时返回空列表
         }
+        springPathsVersion = Long.toHexString(DedupCache.key(String.join("\n", springPaths)));
+    }
+
+    // Spring路径字典版本，修改字典后持久化去重索引重新扫描
+    public String springPathsVersion() {
+        return springPathsVersion;
     }
 
     // 外部调用接口：获取Spring路径列表（返回副本，避免外部修改）
@@ -45,24 +45,31 @@ public class Extension implements BurpExtension {
                 MAX_POOL_SIZE,
                 KEEP_ALIVE_TIME,
                 QUEUE_CAPACITY,
-                3000,
+                3000, // 全局任务启动速率上限，单个目标主机的请求速率由HostLimiter自适应调整
                 montoyaApi
         );
-        // 启动定时清理缓存
-        MyHttpHandler.scheduleMarkCleanup();
 
         // 注册标签页面
         MySuiteTab mySuiteTab = new MySuiteTab(montoyaApi);
+        mySuiteTab.setExecutor(executor);
         montoyaApi.userInterface().registerSuiteTab("JaySenScan", mySuiteTab.getUiComponent());
         // 注册菜单
         montoyaApi.userInterface().registerContextMenuItemsProvider(new MyMenu(montoyaApi, mySuiteTab, executor));
+        // 打开扫描任务日志，后台加载持久化去重索引
+        ScanJournal.initialize(montoyaApi);
+        ScanIndex.initialize(montoyaApi);
+        // 加载payload包并监视目录变化
+        PayloadPacks.initialize(montoyaApi);
         // 注册HTTP监听器
-        montoyaApi.http().registerHttpHandler(new MyHttpHandler(montoyaApi, mySuiteTab, executor));
+        MyHttpHandler httpHandler = new MyHttpHandler(montoyaApi, mySuiteTab, executor);
+        montoyaApi.http().registerHttpHandler(httpHandler);
         // 注册PROXY监听器
         montoyaApi.proxy().registerRequestHandler(new MyProxyRequestHandler(montoyaApi));
         montoyaApi.proxy().registerResponseHandler(new MyProxyRequestHandler(montoyaApi));
         // 初始化 CheckDnslogResult
         CheckDnslogResult.initialize(montoyaApi, mySuiteTab);
+        // 恢复上次未完成的扫描任务和未检查的关键词
+        ScanJournal.replay(executor, httpHandler.getScan());
         // 卸载关闭线程
         montoyaApi.extension().registerUnloadingHandler(this::unload);
     }
@@ -70,8 +77,14 @@ public class Extension implements BurpExtension {
     private void unload() {
         // 关闭批量检查的定时任务
         CheckDnslogResult.getInstance().shutdown();
+        // 先关闭扫描任务日志，因卸载而取消的任务下次启动时继续执行
+        ScanJournal.close();
         // 关闭其他线程池（如扫描线程池）
         executor.shutdown();
+        ScanIndex.close();
+        PayloadPacks.close();
+        // 关闭加解密接口客户端
+        CryptoBridgeClient.shutdown();
         // 写入最后的缓存日志
         new SaveLogFile().cleanUp();
 
@@ -0,0 +1,204 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按目标主机（协议+主机+端口）限制扫描请求：同时在途的请求数上限 + 每秒请求数上限
+ * 虚拟线程模式下并发不再受线程数约束，由该限制避免单个目标被大量请求压垮
+ * 开启自适应限速时，速率和并发上限由AdaptiveRateController根据响应状态码、延迟和连接失败动态调整
+ * 长时间没有请求的主机定期清理，避免扫描过的主机越来越多时一直占用内存
+ */
+public class HostLimiter {
+    private static final Map<String, HostPermit> HOSTS = new ConcurrentHashMap<>();
+    // 清理检查间隔
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // 没有在途请求且超过该时长未使用的主机被清理
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    // 当前限制对应的配置，配置变化时重建
+    private static volatile String currentSignature;
+    private static volatile long lastPrune = System.nanoTime();
+
+    private HostLimiter() {
+    }
+
+    // 目标主机标识，如 https://example.com:443
+    public static String keyOf(HttpService service) {
+        return (service.secure() ? "https" : "http") + "://" + service.host().toLowerCase() + ":" + service.port();
+    }
+
+    /**
+     * 获取目标主机的请求许可（阻塞等待并发名额和限速令牌）
+     * @return 已获取的许可，请求结束后调用其release()
+     */
+    public static HostPermit acquire(HttpService service) throws InterruptedException {
+        DnslogConfig config = DnslogConfig.getInstance();
+        String signature = config.scanPerHostConcurrency + "|" + config.scanPerHostQps + "|" + config.scanAdaptiveEnabled
+                + "|" + config.scanAdaptiveMinQps + "|" + config.scanAdaptiveMaxQps + "|" + config.scanAdaptiveLatencyMs;
+        if (!signature.equals(currentSignature)) {
+            synchronized (HostLimiter.class) {
+                if (!signature.equals(currentSignature)) {
+                    // 在途请求仍释放到旧的许可，不受影响
+                    HOSTS.clear();
+                    currentSignature = signature;
+                }
+            }
+        }
+        prune();
+        // 在同一原子操作中更新使用时间，清理时不会移除刚取出的许可
+        HostPermit permit = HOSTS.compute(keyOf(service), (k, existing) -> {
+            HostPermit value = existing == null ? new HostPermit(config) : existing;
+            value.lastUsed = System.nanoTime();
+            return value;
+        });
+        permit.acquire();
+        return permit;
+    }
+
+    // 清理空闲的主机（每分钟最多检查一次）
+    private static void prune() {
+        long now = System.nanoTime();
+        if (now - lastPrune < PRUNE_INTERVAL_NANOS) {
+            return;
+        }
+        synchronized (HostLimiter.class) {
+            if (now - lastPrune < PRUNE_INTERVAL_NANOS) {
+                return;
+            }
+            lastPrune = now;
+        }
+        for (String key : HOSTS.keySet()) {
+            HOSTS.computeIfPresent(key, (k, permit) -> permit.isIdle(now) ? null : permit);
+        }
+    }
+
+    // 各目标主机当前的在途请求数（不含为0的主机）
+    public static Map<String, Integer> inFlight() {
+        Map<String, Integer> result = new HashMap<>();
+        for (Map.Entry<String, HostPermit> entry : HOSTS.entrySet()) {
+            int count = entry.getValue().inFlight();
+            if (count > 0) {
+                result.put(entry.getKey(), count);
+            }
+        }
+        return result;
+    }
+
+    // 各目标主机的自适应限速状态
+    public static String formatAdaptiveStats() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, HostPermit> entry : new TreeMap<>(HOSTS).entrySet()) {
+            AdaptiveRateController controller = entry.getValue().controller;
+            if (controller != null) {
+                lines.add(entry.getKey() + "  " + controller.describe());
+            }
+        }
+        return lines.isEmpty() ? "" : "自适应限速:\n" + String.join("\n", lines);
+    }
+
+    // 单个目标主机的并发名额和限速令牌桶（用ReentrantLock等待，虚拟线程等待时不占用载体线程）
+    public static class HostPermit {
+        private final int fixedLimit;
+        private final TokenBucket rateLimiter; // 为null表示不限速
+        private final AdaptiveRateController controller; // 为null表示未开启自适应限速
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private int inFlight;
+        // 最近一次取出许可的时间（在HOSTS.compute中更新）
+        private volatile long lastUsed = System.nanoTime();
+
+        HostPermit(DnslogConfig config) {
+            this.fixedLimit = Math.max(1, config.scanPerHostConcurrency);
+            if (config.scanAdaptiveEnabled) {
+                this.controller = new AdaptiveRateController(config.scanAdaptiveMinQps, config.scanAdaptiveMaxQps,
+                        fixedLimit, config.scanAdaptiveLatencyMs);
+                this.rateLimiter = controller.rateLimiter();
+            } else {
+                this.controller = null;
+                this.rateLimiter = config.scanPerHostQps > 0 ? new TokenBucket(config.scanPerHostQps) : null;
+            }
+        }
+
+        private int limit() {
+            return controller == null ? fixedLimit : controller.concurrency();
+        }
+
+        private int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isIdle(long now) {
+            return now - lastUsed > IDLE_NANOS && inFlight() == 0;
+        }
+
+        private void acquire() throws InterruptedException {
+            if (controller != null) {
+                long pause = controller.pauseRemainingMillis();
+                if (pause > 0) {
+                    Thread.sleep(pause);
+                }
+            }
+            lock.lockInterruptibly();
+            try {
+                while (inFlight >= limit()) {
+                    released.await();
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+            } catch (InterruptedException e) {
+                release();
+                throw e;
+            }
+        }
+
+        public void release() {
+            lock.lock();
+            try {
+                inFlight--;
+                // 自适应限速可能已调高并发上限，唤醒全部等待者重新检查
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // 释放许可并将请求结果反馈给自适应限速（result为空表示请求异常）
+        public void release(HttpRequestResponse result, long latencyNanos) {
+            if (controller != null) {
+                controller.record(result, latencyNanos);
+            }
+            release();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 外部HTTP接口加解密引擎（对接jaysenscan.py等桥接服务）
+ * 传输格式：json（body转为字符串放入JSON）/ binary（二进制分帧，body按原始字节流式传输，见CryptoFrame）
+ */
+public class HttpBridgeCryptoEngine implements CryptoEngine {
+    public static final String WIRE_JSON = "json";
+    public static final String WIRE_BINARY = "binary";
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public CryptoDelta requestDelta(HttpRequest request, String stage) throws Exception {
+        if (isBinary()) {
+            return requestDeltaBinary(request, stage);
+        }
+        // 通过共享客户端发送（复用连接池）
+        Map<String, Object> data = CryptoEnvelope.buildRequestData(request);
+        String jsonBody = JSON.toJSONString(data); // Map 转 JSON 字符串
+        String response = CryptoBridgeClient.getInstance().post(stage, jsonBody);
+        // 解析返回的数据，只记录发生变化的部分
+        return CryptoDelta.forRequest(data, JSON.parseObject(response));
+    }
+
+    @Override
+    public CryptoDelta responseDelta(HttpResponse response, String stage) throws Exception {
+        if (isBinary()) {
+            return responseDeltaBinary(response, stage);
+        }
+        Map<String, Object> data = CryptoEnvelope.buildResponseData(response);
+        String result = CryptoBridgeClient.getInstance().post(stage, JSON.toJSONString(data));
+        return CryptoDelta.forResponse(data, JSON.parseObject(result));
+    }
+
+    private static boolean isBinary() {
+        return WIRE_BINARY.equals(DnslogConfig.getInstance().cryptoWireFormat);
+    }
+
+    // 二进制协议：POST /bin/{stage}，接口声明只处理请求头的阶段不发送body
+    private CryptoDelta requestDeltaBinary(HttpRequest request, String stage) throws Exception {
+        CryptoBridgeClient client = CryptoBridgeClient.getInstance();
+        Map<String, Object> head = CryptoEnvelope.buildRequestHead(request);
+        ByteArray body = client.headersOnlyStages().contains(stage) ? null : request.body();
+        CryptoFrame reply = client.postFrame("bin/" + stage, CryptoFrame.encode(head, body));
+        return withRawBody(CryptoDelta.forRequest(head, reply.envelope()), reply);
+    }
+
+    private CryptoDelta responseDeltaBinary(HttpResponse response, String stage) throws Exception {
+        CryptoBridgeClient client = CryptoBridgeClient.getInstance();
+        Map<String, Object> head = CryptoEnvelope.buildResponseHead(response);
+        ByteArray body = client.headersOnlyStages().contains(stage) ? null : response.body();
+        CryptoFrame reply = client.postFrame("bin/" + stage, CryptoFrame.encode(head, body));
+        return withRawBody(CryptoDelta.forResponse(head, reply.envelope()), reply);
+    }
+
+    // 接口返回了新的body字节时一并替换（声明unchanged时忽略）
+    private static CryptoDelta withRawBody(CryptoDelta delta, CryptoFrame reply) {
+        if (reply.body() != null && !Boolean.TRUE.equals(reply.envelope().get(CryptoDelta.UNCHANGED_FLAG))) {
+            delta.replaceBody(ByteArray.byteArray(reply.body()));
+        }
+        return delta;
+    }
+
+    // 批量接口：POST /batch/{stage}，请求体为数据包数组，按相同顺序返回数组
+    @Override
+    public List<HttpRequest> processRequests(List<HttpRequest> requests, String stage) throws Exception {
+        JSONArray envelopes = new JSONArray(requests.size());
+        List<Map<String, Object>> dataList = new ArrayList<>(requests.size());
+        for (HttpRequest request : requests) {
+            Map<String, Object> data = CryptoEnvelope.buildRequestData(request);
+            dataList.add(data);
+            envelopes.add(data);
+        }
+        String response = CryptoBridgeClient.getInstance().post("batch/" + stage, envelopes.toJSONString());
+        JSONArray resultArray = JSON.parseArray(response);
+        if (resultArray == null || resultArray.size() != requests.size()) {
+            throw new IllegalStateException("批量接口返回数量与请求数量不一致");
+        }
+        List<HttpRequest> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(CryptoEnvelope.applyRequestData(requests.get(i), dataList.get(i), resultArray.getJSONObject(i)));
+        }
+        return results;
+    }
+}
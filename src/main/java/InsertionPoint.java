@@ -0,0 +1,196 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 注入点：请求头、URL参数、表单参数、JSON叶子节点、Cookie、路径段，以及FastJSON请求体中的嵌套对象或整个请求体
+ * 每个注入点在本次扫描中有唯一序号，payload中的DNSLOG子域名带有该序号（{扫描标识}p{序号}x），
+ * 一条回连记录即可定位到具体注入点
+ */
+public record InsertionPoint(Type type, String name, int index) {
+    // 注入点策略：全部注入点同一请求 / 每个注入点单独请求 / 同一请求，被拦截时二分拆分后重试
+    public static final String STRATEGY_ALL_IN_ONE = "ALL_IN_ONE";
+    public static final String STRATEGY_PER_POINT = "PER_POINT";
+    public static final String STRATEGY_BISECT = "BISECT";
+
+    public enum Type {
+        HEADER("header"),
+        URL("url"),
+        BODY("body"),
+        JSON("json"),
+        COOKIE("cookie"),
+        PATH("path"),
+        JSON_NODE("jsonnode"),   // FastJSON请求体中的注入位置（见JsonSplicer），index为位置序号
+        WHOLE_BODY("wholebody");
+
+        final String key;
+
+        Type(String key) {
+            this.key = key;
+        }
+    }
+
+    // 不注入的关键头（避免替换后请求无法正常发送），小写，按名称查找时不区分大小写
+    private static final Set<String> RESERVED_HEADERS = Set.of(
+            "host",              // 必须保留，否则目标地址失效
+            "content-length",    // 必须保留，否则请求体长度不匹配
+            "jaysenreqreceived",
+            "jaysenreqtobesent",
+            "content-type",      // 保留，确保POST表单格式正确
+            "connection",        // 保留，维持连接状态
+            "accept",
+            "accept-encoding",
+            "accept-language",
+            "transfer-encoding",
+            "content-encoding",
+            "content-language"
+    );
+
+    public static boolean isReserved(String headerName) {
+        return RESERVED_HEADERS.contains(headerName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 提取请求中指定类型的注入点
+     * 同名请求头只注入一次；路径段的index为按"/"分割后的位置（不含查询字符串）
+     */
+    public static List<InsertionPoint> extract(HttpRequest request, Set<Type> types) {
+        List<InsertionPoint> points = new ArrayList<>();
+        if (types.contains(Type.HEADER)) {
+            Set<String> names = new LinkedHashSet<>();
+            for (HttpHeader header : request.headers()) {
+                if (!isReserved(header.name())) {
+                    names.add(header.name());
+                }
+            }
+            for (String name : names) {
+                points.add(new InsertionPoint(Type.HEADER, name, -1));
+            }
+        }
+        for (ParsedHttpParameter parameter : request.parameters()) {
+            Type type = switch (parameter.type()) {
+                case URL -> Type.URL;
+                case BODY -> Type.BODY;
+                case JSON -> Type.JSON;
+                case COOKIE -> Type.COOKIE;
+                default -> null;
+            };
+            if (type != null && types.contains(type)) {
+                points.add(new InsertionPoint(type, parameter.name(), -1));
+            }
+        }
+        if (types.contains(Type.PATH)) {
+            String[] segments = request.pathWithoutQuery().split("/", -1);
+            for (int i = 0; i < segments.length; i++) {
+                if (!segments[i].isEmpty()) {
+                    points.add(new InsertionPoint(Type.PATH, segments[i], i));
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * FastJSON扫描的注入点：JSON参数整体替换；JSON请求体注入到包裹位置和嵌套的对象叶子（按优先级排列），
+     * 无法定位时退回整体替换
+     */
+    public static List<InsertionPoint> forJson(JsonData jsonData) {
+        return switch (jsonData.getSourceType()) {
+            case REQUEST_BODY -> {
+                List<JsonSplicer.Slot> slots = JsonSplicer.locate(jsonData.getJsonContent());
+                if (slots.isEmpty()) {
+                    yield List.of(new InsertionPoint(Type.WHOLE_BODY, "", -1));
+                }
+                List<InsertionPoint> points = new ArrayList<>(slots.size());
+                for (int i = 0; i < slots.size(); i++) {
+                    points.add(new InsertionPoint(Type.JSON_NODE, slots.get(i).path(), i));
+                }
+                points.sort(Comparator.comparingInt(point -> slots.get(point.index()).depth()));
+                yield points;
+            }
+            case GET_PARAM -> List.of(new InsertionPoint(Type.URL, jsonData.getParamName(), -1));
+            case POST_PARAM -> List.of(new InsertionPoint(Type.BODY, jsonData.getParamName(), -1));
+        };
+    }
+
+    /**
+     * 解析注入点类型配置（如 header,url,body,json,cookie,path）
+     * @throws IllegalArgumentException 包含未知类型时
+     */
+    public static Set<Type> parseTypes(String config) {
+        Set<Type> types = EnumSet.noneOf(Type.class);
+        for (String key : config.split(",")) {
+            key = key.trim().toLowerCase(Locale.ROOT);
+            if (key.isEmpty()) {
+                continue;
+            }
+            Type matched = null;
+            for (Type type : Type.values()) {
+                if (type != Type.WHOLE_BODY && type != Type.JSON_NODE && type.key.equals(key)) {
+                    matched = type;
+                }
+            }
+            if (matched == null) {
+                throw new IllegalArgumentException("未知的注入点类型：" + key);
+            }
+            types.add(matched);
+        }
+        return types;
+    }
+
+    // 注入点的DNSLOG标签：{扫描标识}p{序号}x，结尾的x避免p1匹配到p12
+    public static String label(String scanId, int pointIndex) {
+        return scanId + "p" + pointIndex + "x";
+    }
+
+    // 参数对应的Montoya参数类型（非参数注入点返回null）
+    public HttpParameterType parameterType() {
+        return switch (type) {
+            case URL -> HttpParameterType.URL;
+            case BODY -> HttpParameterType.BODY;
+            case JSON -> HttpParameterType.JSON;
+            case COOKIE -> HttpParameterType.COOKIE;
+            default -> null;
+        };
+    }
+
+    // 注入的值是否需要URL编码：路径段始终编码，参数在未启用加解密时编码，请求头和请求体使用原文
+    public boolean urlEncoded(boolean cryptEnable) {
+        return switch (type) {
+            case PATH -> true;
+            case URL, BODY, JSON, COOKIE -> !cryptEnable;
+            default -> false;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case WHOLE_BODY -> "请求体";
+            case JSON_NODE -> name;
+            case PATH -> "path[" + index + "]:" + name;
+            default -> type.key + ":" + name;
+        };
+    }
+}
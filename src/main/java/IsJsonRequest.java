@@ -11,8 +11,8 @@
  * GitHub：https://github.com/Jaysen13/JaySenScan
  * 许可证详情：参见项目根目录 LICENSE 文件
  */
-import burp.api.montoya.http.handler.HttpRequestToBeSent;
 import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.params.HttpParameter;
 import burp.api.montoya.http.message.params.ParsedHttpParameter;
 import com.alibaba.fastjson2.JSONArray;
@@ -29,7 +29,7 @@ import java.util.regex.Pattern;
 
 public class IsJsonRequest {
 
-    public static List<JsonData> isJsonRequest(HttpRequestToBeSent request) {
+    public static List<JsonData> isJsonRequest(HttpRequest request) {
         List<JsonData> jsonDataList = new ArrayList<>();
         String contentType = request.headerValue("Content-Type") != null ? request.headerValue("Content-Type") : "";
 
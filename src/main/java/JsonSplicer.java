@@ -0,0 +1,132 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import com.alibaba.fastjson2.JSONReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 定位JSON请求体中可注入FastJSON payload的位置（流式JSONReader遍历，不构建DOM）
+ * 1. 包裹：在根对象中追加一个成员（根为数组时追加一个元素），原文档其余部分保持不变
+ * 2. 对象叶子：不再包含对象的对象值（根对象除外），整体替换为payload
+ * 位置记录为原文中的偏移，注入时直接拼接原文，不重新序列化；各位置互不重叠，可在同一请求中同时注入
+ */
+public class JsonSplicer {
+    // 包裹时追加的成员名
+    static final String WRAP_KEY = "jaysenScan";
+    // 超过该深度的嵌套不再遍历
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * 注入位置：原文[start, end)替换为 prefix + payload + suffix
+     * @param path 位置的JSON路径（如 $.data.user，包裹为 $+）
+     */
+    public record Slot(int start, int end, String prefix, String suffix, String path, int depth) {
+    }
+
+    /**
+     * 按文档顺序返回注入位置；不是JSON对象/数组、解析失败或偏移校验失败时返回空列表
+     */
+    public static List<Slot> locate(String json) {
+        List<Slot> slots = new ArrayList<>();
+        try (JSONReader reader = JSONReader.of(json)) {
+            char root = reader.current();
+            int rootStart = reader.getOffset() - 1;
+            if ((root != '{' && root != '[') || rootStart < 0 || json.charAt(rootStart) != root) {
+                return List.of();
+            }
+            List<Slot> leaves = new ArrayList<>();
+            walk(reader, json, "$", 0, leaves);
+            int rootEnd = root == '{' ? objectEnd(reader, json) : json.lastIndexOf(']') + 1;
+            if (rootEnd <= rootStart || json.charAt(rootEnd - 1) != (root == '{' ? '}' : ']')) {
+                return List.of();
+            }
+            boolean empty = json.substring(rootStart + 1, rootEnd - 1).isBlank();
+            slots.add(new Slot(rootStart + 1, rootStart + 1, root == '{' ? "\"" + WRAP_KEY + "\":" : "",
+                    empty ? "" : ",", "$+", 0));
+            slots.addAll(leaves);
+        } catch (RuntimeException e) {
+            // 非法JSON，由调用方退回整体替换
+            return List.of();
+        }
+        return slots;
+    }
+
+    // 遍历一个值，返回该值是否为对象或包含对象（包含对象的对象不是叶子）
+    private static boolean walk(JSONReader reader, String json, String path, int depth, List<Slot> leaves) {
+        char current = reader.current();
+        if (depth > MAX_DEPTH) {
+            reader.skipValue();
+            return true;
+        }
+        if (current == '{') {
+            int start = reader.getOffset() - 1;
+            reader.nextIfObjectStart();
+            boolean nested = false;
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                nested |= walk(reader, json, path + "." + name, depth + 1, leaves);
+            }
+            int end = objectEnd(reader, json);
+            if (end <= start || json.charAt(start) != '{' || json.charAt(end - 1) != '}') {
+                // 偏移与原文对不上时不做拼接，整体退回
+                throw new IllegalStateException("offset mismatch at " + path);
+            }
+            if (!nested && depth > 0) {
+                leaves.add(new Slot(start, end, "", "", path, depth));
+            }
+            return true;
+        }
+        if (current == '[') {
+            reader.nextIfArrayStart();
+            boolean nested = false;
+            for (int i = 0; !reader.nextIfArrayEnd(); i++) {
+                nested |= walk(reader, json, path + "[" + i + "]", depth + 1, leaves);
+            }
+            return nested;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    // 刚读完的对象在原文中的结束位置（reader已移到下一个记号，对象的"}"在其之前，中间只有空白和逗号）
+    private static int objectEnd(JSONReader reader, String json) {
+        int next = reader.isEnd() ? json.length() : Math.min(reader.getOffset() - 1, json.length());
+        return json.lastIndexOf('}', next - 1) + 1;
+    }
+
+    /**
+     * 将payload注入多个互不重叠的位置
+     * @param slots 注入位置
+     * @param values 各位置的payload（与slots一一对应）
+     */
+    public static String splice(String json, List<Slot> slots, List<String> values) {
+        Integer[] order = new Integer[slots.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // 按偏移排序，同一位置的追加（start == end）在替换之前
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> slots.get(i).start())
+                .thenComparingInt(i -> slots.get(i).end()));
+        StringBuilder sb = new StringBuilder(json.length() + 256 * slots.size());
+        int cursor = 0;
+        for (int i : order) {
+            Slot slot = slots.get(i);
+            sb.append(json, cursor, slot.start()).append(slot.prefix()).append(values.get(i)).append(slot.suffix());
+            cursor = slot.end();
+        }
+        return sb.append(json, cursor, json.length()).toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.params.HttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将payload注入请求的一组注入点（Log4j/FastJSON扫描）
+ * 每类注入点只需一次批量修改（路径、请求头、参数、请求体各一次），与注入点的数量无关；
+ * JSON请求体中的多个注入位置一次拼接完成
+ */
+public class MutationBuilder {
+    private final HttpRequest request;
+    private String[] pathSegments; // 按"/"分割的路径（不含查询字符串），首次注入路径段时计算
+    private String body;               // 原始请求体及其中的注入位置，首次注入JSON位置时计算
+    private List<JsonSplicer.Slot> jsonSlots;
+
+    public MutationBuilder(HttpRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * 生成注入payload后的请求
+     * @param points 注入点
+     * @param values 各注入点的值（与points一一对应，已按需URL编码）
+     * @param addedHeaders 额外添加的请求头（如扫描标记）
+     */
+    public HttpRequest build(List<InsertionPoint> points, List<String> values, List<HttpHeader> addedHeaders) {
+        List<HttpHeader> headers = new ArrayList<>();
+        List<HttpParameter> parameters = new ArrayList<>();
+        String[] segments = null;
+        String newBody = null;
+        List<JsonSplicer.Slot> slots = new ArrayList<>();
+        List<String> slotValues = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            InsertionPoint point = points.get(i);
+            String value = values.get(i);
+            switch (point.type()) {
+                case HEADER -> headers.add(HttpHeader.httpHeader(point.name(), value));
+                case PATH -> {
+                    if (segments == null) {
+                        segments = pathSegments().clone();
+                    }
+                    segments[point.index()] = value;
+                }
+                case WHOLE_BODY -> newBody = value;
+                case JSON_NODE -> {
+                    slots.add(jsonSlots().get(point.index()));
+                    slotValues.add(value);
+                }
+                default -> parameters.add(HttpParameter.parameter(point.name(), value, point.parameterType()));
+            }
+        }
+        HttpRequest modified = request;
+        // 路径最先修改，之后再更新URL参数
+        if (segments != null) {
+            String query = request.query();
+            String path = String.join("/", segments);
+            modified = modified.withPath(query == null || query.isEmpty() ? path : path + "?" + query);
+        }
+        if (!headers.isEmpty()) {
+            modified = modified.withUpdatedHeaders(headers);
+        }
+        if (!parameters.isEmpty()) {
+            modified = modified.withUpdatedParameters(parameters);
+        }
+        if (!slots.isEmpty()) {
+            newBody = JsonSplicer.splice(body, slots, slotValues);
+        }
+        if (newBody != null) {
+            modified = modified.withBody(newBody);
+        }
+        if (!addedHeaders.isEmpty()) {
+            modified = modified.withAddedHeaders(addedHeaders);
+        }
+        return modified;
+    }
+
+    private String[] pathSegments() {
+        if (pathSegments == null) {
+            pathSegments = request.pathWithoutQuery().split("/", -1);
+        }
+        return pathSegments;
+    }
+
+    private List<JsonSplicer.Slot> jsonSlots() {
+        if (jsonSlots == null) {
+            body = request.bodyToString();
+            jsonSlots = JsonSplicer.locate(body);
+        }
+        return jsonSlots;
+    }
+}
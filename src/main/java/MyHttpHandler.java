@@ -18,10 +18,6 @@ import burp.api.montoya.http.message.responses.HttpResponse;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class MyHttpHandler implements HttpHandler {
@@ -29,8 +25,8 @@ public class MyHttpHandler implements HttpHandler {
     private MySuiteTab mySuiteTab;
     private final Scan scan;
     private final PluginTaskExecutor executor;
-    // 存储“扫描类型_标准化URL”的标记，确保不同类型扫描互不干扰
-    static final Set<String> scannedMarks = ConcurrentHashMap.newKeySet();
+    // 记录“扫描类型+标准化URL”的哈希，确保不同类型扫描互不干扰，条目到期后允许重新扫描（容量重新加载插件后生效）
+    private static final DedupCache scannedMarks = new DedupCache(DnslogConfig.getInstance().scanDedupMaxEntries);
 
     public MyHttpHandler(MontoyaApi monApi, MySuiteTab mySuiteTab, PluginTaskExecutor executor) {
         this.monApi = monApi;
@@ -40,12 +36,35 @@ public class MyHttpHandler implements HttpHandler {
 
     }
 
-    // 定期清理过期标记（每10分钟清理一次）
-    public static void scheduleMarkCleanup() {
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(() -> {
-            scannedMarks.clear(); // 简单清理，若需精细化可遍历筛选
-        }, 10, 5, TimeUnit.MINUTES);
+    // 扫描任务日志恢复未完成任务时复用同一个Scan实例
+    public Scan getScan() {
+        return scan;
+    }
+
+    public static String formatDedupStats() {
+        return scannedMarks.formatStats() + "\n" + ScanIndex.formatStats();
+    }
+
+    /**
+     * 占用扫描标记并提交任务，插件卸载中未能提交时释放标记；
+     * 持久化索引中已扫描过的端点不再提交，任务正常结束后写入持久化索引
+     */
+    private void submitOnce(String type, String dedupKey, HttpRequestToBeSent request, String description) {
+        long mark = DedupCache.key(type, dedupKey);
+        long ttlMillis = TimeUnit.MINUTES.toMillis(Math.max(1, DnslogConfig.getInstance().scanDedupTtlMinutes));
+        if (!scannedMarks.claim(mark, ttlMillis) || ScanIndex.contains(type, dedupKey)) {
+            return;
+        }
+        ScanHandle handle = ScanJournal.submit(executor, scan, type, request, description);
+        if (handle == null) {
+            scannedMarks.release(mark);
+            return;
+        }
+        handle.whenFinished(() -> {
+            if (!handle.isCancelled()) {
+                ScanIndex.record(type, dedupKey);
+            }
+        });
     }
 
     @Override
@@ -83,43 +102,37 @@ public class MyHttpHandler implements HttpHandler {
         // 只扫描/加密指定的目标
         if (targetDomain.isEmpty() || "*".equals(targetDomain) || host.contains(targetDomain)) {
             String standardUrl = standardizeUrl(httpRequestToBeSent.url());
+            // 去重键：开启路由模板时按模板去重（如 /api/user/{int}）
+            String dedupKey = DnslogConfig.getInstance().scanRouteTemplateEnabled
+                    ? RouteTemplateLearner.getInstance().template(standardUrl, true) : standardUrl;
 
             // 扫描FastJson
             if (fjson_flag.equals("false")) {
                 List<JsonData> jsonData = IsJsonRequest.isJsonRequest(httpRequestToBeSent);
                 if (!jsonData.isEmpty()) {
-                    String mark = "fastjson_" + standardUrl;
-                    if (!scannedMarks.contains(mark)) {
-                        scannedMarks.add(mark);
-                        executor.submit(() -> scan.fastJsonScan(httpRequestToBeSent, jsonData));
-                    }
+                    submitOnce(ScanJournal.JOB_FASTJSON, dedupKey, httpRequestToBeSent, "FastJson " + standardUrl);
                 }
             }
 
             // 扫描Log4j
             if (log4j_flag.equals("false")) {
-                String mark = "log4j_" + standardUrl;
-                if (!scannedMarks.contains(mark)) {
-                    scannedMarks.add(mark);
-//                    monApi.logging().logToOutput("传递给log4jscan的数据包"+httpRequestToBeSent);
-                    executor.submit(() -> scan.log4jScan(httpRequestToBeSent));
-                }
+//                monApi.logging().logToOutput("传递给log4jscan的数据包"+httpRequestToBeSent);
+                submitOnce(ScanJournal.JOB_LOG4J, dedupKey, httpRequestToBeSent, "Log4j " + standardUrl);
             }
 
             // 扫描Spring
             if (spring_flag.equals("false")) {
-                String mark = "spring_" + standardUrl;
-                if (!scannedMarks.contains(mark)) {
-                    scannedMarks.add(mark);
-                    executor.submit(() -> scan.springScan(httpRequestToBeSent));
-                }
+                submitOnce(ScanJournal.JOB_SPRING, dedupKey, httpRequestToBeSent, "Spring " + standardUrl);
             }
 
             // 调用加密请求数据包
             if (reqToBeSent_flag.equals("false")) {
-                // 加密回去并请求
-                HttpRequest newRequest = MyProxyRequestHandler.sendRequest(httpRequestToBeSent, "RequestToBeSent",monApi).withAddedHeader("JaysenReqToBeSent","true");
-                return RequestToBeSentAction.continueWith(newRequest);
+                // 加密回去并请求（解密阶段已跳过的请求原样发送）
+                HttpRequest newRequest = httpRequestToBeSent;
+                if (CryptoBypassRules.current().encryptBypassReason(httpRequestToBeSent) == null) {
+                    newRequest = MyProxyRequestHandler.sendRequest(httpRequestToBeSent, "RequestToBeSent",monApi);
+                }
+                return RequestToBeSentAction.continueWith(newRequest.withAddedHeader("JaysenReqToBeSent","true"));
             }
 
         }
@@ -128,7 +141,7 @@ public class MyHttpHandler implements HttpHandler {
     }
 
     // 标准化URL，统一格式以避免因参数/大小写差异导致的重复
-    private String standardizeUrl(String url) {
+    static String standardizeUrl(String url) {
         try {
             URL u = new URL(url);
             StringBuilder sb = new StringBuilder();
@@ -158,6 +171,10 @@ public class MyHttpHandler implements HttpHandler {
         if (respReceived_flag.equals("false") && reqToBeSent_flag.equals("true")) {
             // 解密操作（可以显示在burp上面）
 //            monApi.logging().logToOutput("[DEBUG] handleHttpResponseReceived\n"+httpResponseReceived);
+            // 在密文上判断一次是否跳过，代理只会加密标记为true的响应
+            if (CryptoBypassRules.current().bypassReason(httpResponseReceived) != null) {
+                return ResponseReceivedAction.continueWith(httpResponseReceived.withAddedHeader("JaysenRespReceived", CryptoBypassRules.SKIPPED));
+            }
             HttpResponse newRespon = MyProxyRequestHandler.sendResponse(httpResponseReceived, "ResponseReceived",monApi);
             return ResponseReceivedAction.continueWith(newRespon.withAddedHeader("JaysenRespReceived","true"));
         }
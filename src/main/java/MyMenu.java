@@ -74,10 +74,13 @@ public class MyMenu implements ContextMenuItemsProvider {
                     JOptionPane.showMessageDialog(null,"该请求不是json传输格式","警告",JOptionPane.INFORMATION_MESSAGE);
                 }
             }
-            // 线程任务提交
-            executor.submit(() -> {
+            if (fastJsonRequest.isEmpty()) {
+                return;
+            }
+            // 线程任务提交（按第一个请求的目标主机排队）
+            executor.submit(HostLimiter.keyOf(fastJsonRequest.get(0).httpService()), () -> {
                 scan.fastJsonScan(fastJsonRequest,fastJsonData);
-            });
+            }, PluginTaskExecutor.Lane.INTERACTIVE, "FastJson(手动) " + fastJsonRequest.get(0).url());
 
         });
 //        menuItems.add(myMenuItem);
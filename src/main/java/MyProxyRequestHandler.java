@@ -12,24 +12,11 @@
  * 许可证详情：参见项目根目录 LICENSE 文件
  */
 import burp.api.montoya.MontoyaApi;
-import burp.api.montoya.http.message.HttpHeader;
-import burp.api.montoya.http.message.params.HttpParameter;
-import burp.api.montoya.http.message.params.HttpParameterType;
-import burp.api.montoya.http.message.params.ParsedHttpParameter;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import burp.api.montoya.proxy.http.*;
-import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONObject;
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class MyProxyRequestHandler implements ProxyRequestHandler , ProxyResponseHandler {
     private MontoyaApi montoyaApi;
@@ -57,6 +44,10 @@ public class MyProxyRequestHandler implements ProxyRequestHandler , ProxyRespons
         if (targetDomain.isEmpty() || "*".equals(targetDomain) || host.contains(targetDomain)) {
             // 调用解密请求数据包
             if (reqReceived_flag.equals("false")) {
+                // 在密文上判断一次是否跳过，结果通过标记头带到加密阶段
+                if (CryptoBypassRules.current().bypassReason(interceptedRequest) != null) {
+                    return ProxyRequestToBeSentAction.continueWith(interceptedRequest.withAddedHeader("JaysenReqReceived", CryptoBypassRules.SKIPPED));
+                }
                 // 解密操作（可以显示在burp上面）
                 HttpRequest newRequest = sendRequest(interceptedRequest, "RequestReceived",montoyaApi).withAddedHeader("JaysenReqReceived","true");
                 return ProxyRequestToBeSentAction.continueWith(newRequest);
@@ -90,86 +81,13 @@ public class MyProxyRequestHandler implements ProxyRequestHandler , ProxyRespons
         return ProxyResponseToBeSentAction.continueWith(interceptedResponse);
     }
 
+    // 是否跳过由调用方根据CryptoBypassRules判断，这里只负责调用接口
     public static HttpRequest sendRequest(HttpRequest request, String path,MontoyaApi montoyaApi) {
-        // 目标接口地址
-        String REQUEST_ENDPOINT = DnslogConfig.getInstance().cryptoApiUrl.endsWith("/") ? DnslogConfig.getInstance().cryptoApiUrl + path : DnslogConfig.getInstance().cryptoApiUrl + "/" + path;
-        HttpRequest newRequest = request;
         try {
-            // 构建完整请求数据（包含所有细节）
-            Map<String, Object> data = new HashMap<>();
-            Map<String, String> headersMap = new HashMap<>();
-            Map<String, String> parametersMap = new HashMap<>();
-            // 处理httpheaders
-            List<HttpHeader> headers = request.headers();
-            for (HttpHeader header : headers) {
-                headersMap.put(header.name(), header.value());
-                // 去除掉请求头
-                newRequest = newRequest.withRemovedHeader(header.name());
-            }
-            // 处理url的Pramters
-            List<ParsedHttpParameter> parameters = request.parameters();
-            for (ParsedHttpParameter parameter : parameters) {
-                if (parameter.type() == HttpParameterType.URL) {
-                    parametersMap.put(parameter.name(), parameter.value());
-                    // 去除掉参数
-                    newRequest = newRequest.withRemovedParameters(parameter);
-                }
-            }
-            data.put("paramters", parametersMap);
-            data.put("method", request.method());
-            data.put("headers", headersMap); // 所有请求头（键值对）
-            data.put("body", request.bodyToString()); // 原始请求体
-            data.put("timestamp", System.currentTimeMillis());
-            // 创建url链接
-            URL url = new URL(REQUEST_ENDPOINT);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            // 配置连接参数
-            conn.setRequestMethod("POST");
-            conn.setDoOutput(true);// 允许发送响应体
-            conn.setDoInput(true); // 允许接受响应体
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-            // 设置请求头
-            conn.setRequestProperty("Content-Type", "application/json;charset=UTF-8");
-            // 发送请求
-            String jsonBody = JSON.toJSONString(data); // Map 转 JSON 字符串
-            try (DataOutputStream dos = new DataOutputStream(conn.getOutputStream())) {
-                dos.write(jsonBody.getBytes(StandardCharsets.UTF_8));
-                dos.flush();
-            }
-            // 读取响应
-            StringBuilder response = new StringBuilder();
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    response.append(line);
-                }
-            } finally {
-                conn.disconnect(); // 关闭连接
-            }
-            // 解析返回的数据
-            JSONObject jsonObject = JSON.parseObject(response.toString());
-            Map<String, String> newHeadersMap = (Map<String, String>) jsonObject.get("headers");
-            // 将Map<String, String>转回List<HttpHeader>
-            for (Map.Entry<String, String> entry : newHeadersMap.entrySet()) {
-                if (entry.getValue() != null && entry.getKey() != null){
-                HttpHeader newHeader = HttpHeader.httpHeader(entry.getKey(), entry.getValue());
-                newRequest = newRequest.withHeader(newHeader);
-                }
-            }
-            // 处理parameters
-            Map<String, String> newParametersMap = (Map<String, String>) jsonObject.get("paramters");
-            for (Map.Entry<String, String> entry : newParametersMap.entrySet()) {
-                HttpParameter parameter = HttpParameter.urlParameter(entry.getKey(), entry.getValue());
-                newRequest = newRequest.withParameter(parameter);
-            }
-            // 读取method
-            String newMethod = jsonObject.getString("method");
-            // 读取完整body
-            String newBody = jsonObject.getString("body");
-            newRequest = newRequest.withMethod(newMethod).withBody(newBody);
-            return newRequest;
+            // 交给当前配置的加解密引擎处理（开启结果缓存时相同内容直接复用）
+            return CryptoResultCache.requestDelta(CryptoEngines.current(), request, path).applyTo(request);
+        } catch (CryptoCircuitBreaker.OpenException e) {
+            // 熔断中，直接放行
         } catch (Exception e) {
             montoyaApi.logging().logToError("构建请求外部数据失败: " + e.getMessage());
         }
@@ -177,65 +95,42 @@ public class MyProxyRequestHandler implements ProxyRequestHandler , ProxyRespons
         return request;
     }
 
-    public static HttpResponse sendResponse(HttpResponse reponse, String path,MontoyaApi montoyaApi) {
-        // 目标接口地址
-        String REQUEST_ENDPOINT = DnslogConfig.getInstance().cryptoApiUrl.endsWith("/") ? DnslogConfig.getInstance().cryptoApiUrl + path : DnslogConfig.getInstance().cryptoApiUrl + "/" + path;
-        HttpResponse newRespon = reponse;
-        try {
-            // 构建完整请求数据（包含所有细节）
-            Map<String, Object> data = new HashMap<>();
-            Map<String, String> headersMap = new HashMap<>();
-            // 处理httpheaders
-            List<HttpHeader> headers = reponse.headers();
-            for (HttpHeader header : headers) {
-                headersMap.put(header.name(), header.value());
-                // 去除掉请求头
-                newRespon = newRespon.withRemovedHeader(header.name());
-            }
-            data.put("headers", headersMap); // 所有请求头（键值对）
-            data.put("body", reponse.bodyToString()); // 原始请求体
-//            montoyaApi.logging().logToOutput("[DEBUG] sendResponse:\n " + reponse);
-            // 创建url链接
-            URL url = new URL(REQUEST_ENDPOINT);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            // 配置连接参数
-            conn.setRequestMethod("POST");
-            conn.setDoOutput(true);// 允许发送响应体
-            conn.setDoInput(true); // 允许接受响应体
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-            // 设置请求头
-            conn.setRequestProperty("Content-Type", "application/json;charset=UTF-8");
-            // 发送请求
-            String jsonBody = JSON.toJSONString(data); // Map 转 JSON 字符串
-            try (DataOutputStream dos = new DataOutputStream(conn.getOutputStream())) {
-                dos.write(jsonBody.getBytes(StandardCharsets.UTF_8));
-                dos.flush();
-            }
-            // 读取响应
-            StringBuilder response = new StringBuilder();
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    response.append(line);
-                }
-            } finally {
-                conn.disconnect(); // 关闭连接
-            }
-            // 解析返回的数据
-            JSONObject jsonObject = JSON.parseObject(response.toString());
-            Map<String, String> newHeadersMap = (Map<String, String>) jsonObject.get("headers");
-            // 将Map<String, String>转回List<HttpHeader>
-            for (Map.Entry<String, String> entry : newHeadersMap.entrySet()) {
-                if (entry.getKey() != null && entry.getValue() != null){
-                newRespon = newRespon.withAddedHeader(entry.getKey(),entry.getValue());
+    /**
+     * 批量处理请求（HTTP引擎对应 POST /batch/{path}），一次往返处理整组请求
+     * @param requests 待处理的请求列表
+     * @param path 接口路径（如RequestToBeSent）
+     * @param markerHeader 处理成功后添加的标记头（如JaysenReqToBeSent），避免HTTP监听器重复处理
+     * @return 与输入一一对应的处理结果；接口出错时原样返回未处理的请求
+     */
+    public static List<HttpRequest> sendRequests(List<HttpRequest> requests, String path, String markerHeader, MontoyaApi montoyaApi) {
+        List<HttpRequest> results = new ArrayList<>(requests.size());
+        int batchSize = Math.max(1, DnslogConfig.getInstance().cryptoBatchSize);
+        CryptoEngine engine = CryptoEngines.current();
+        for (int start = 0; start < requests.size(); start += batchSize) {
+            List<HttpRequest> chunk = requests.subList(start, Math.min(start + batchSize, requests.size()));
+            try {
+                for (HttpRequest processed : engine.processRequests(chunk, path)) {
+                    results.add(processed.withAddedHeader(markerHeader, "true"));
                 }
+            } catch (CryptoCircuitBreaker.OpenException e) {
+                // 熔断中，剩余请求全部保留原样
+                results.addAll(requests.subList(start, requests.size()));
+                break;
+            } catch (Exception e) {
+                montoyaApi.logging().logToError("批量构建请求外部数据失败: " + e.getMessage());
+                // 批量失败时保留原请求，由HTTP监听器逐个处理
+                results.addAll(chunk);
             }
-            // 读取完整body
-            String newBody = jsonObject.getString("body");
-            newRespon = newRespon.withBody(newBody);
-            return newRespon;
+        }
+        return results;
+    }
+
+    public static HttpResponse sendResponse(HttpResponse reponse, String path,MontoyaApi montoyaApi) {
+        try {
+            // 交给当前配置的加解密引擎处理（开启结果缓存时相同内容直接复用）
+            return CryptoResultCache.responseDelta(CryptoEngines.current(), reponse, path).applyTo(reponse);
+        } catch (CryptoCircuitBreaker.OpenException e) {
+            // 熔断中，直接放行
         } catch (Exception e) {
             montoyaApi.logging().logToError("构建请求外部数据失败: " + e.getMessage());
         }
@@ -13,6 +13,8 @@
  */
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
 import burp.api.montoya.repeater.Repeater;
 
 import javax.swing.*;
@@ -41,6 +43,7 @@ public class MySuiteTab {
     private DnslogConfig dnslogConfig;
     private final JPanel configPanel;
     private boolean configExpanded = false;
+    private PluginTaskExecutor executor;
 
     public MySuiteTab(MontoyaApi montoyaApi) {
         this.montoyaApi = montoyaApi;
@@ -265,6 +268,167 @@ public class MySuiteTab {
         cryptoApiUrlField.setText(dnslogConfig.cryptoApiUrl); // 加载保存的链接（原默认值改为配置读取）
         cryptoPanel.add(cryptoApiUrlField, cryptoGbc);
 
+        // 3. 加解密引擎选择（外部接口 / 进程内脚本）
+        cryptoGbc.gridy++;
+        cryptoPanel.add(new JLabel("加解密引擎:"), cryptoGbc);
+        cryptoGbc.gridy++;
+        JComboBox<String> cryptoEngineSelector = new JComboBox<>(new String[]{CryptoEngines.TYPE_HTTP, CryptoEngines.TYPE_SCRIPT});
+        cryptoEngineSelector.setSelectedItem(dnslogConfig.cryptoEngineType);
+        cryptoPanel.add(cryptoEngineSelector, cryptoGbc);
+
+        cryptoGbc.gridy++;
+        JPanel cryptoWirePanel = new JPanel(new BorderLayout(5, 0));
+        cryptoWirePanel.add(new JLabel("接口传输格式:"), BorderLayout.WEST);
+        JComboBox<String> cryptoWireSelector = new JComboBox<>(new String[]{HttpBridgeCryptoEngine.WIRE_JSON, HttpBridgeCryptoEngine.WIRE_BINARY});
+        cryptoWireSelector.setSelectedItem(dnslogConfig.cryptoWireFormat);
+        cryptoWireSelector.setToolTipText("binary：body按原始字节分帧传输，适合二进制/大体积body，需配合新版jaysenscan.py");
+        cryptoWirePanel.add(cryptoWireSelector, BorderLayout.CENTER);
+        cryptoPanel.add(cryptoWirePanel, cryptoGbc);
+
+        cryptoGbc.gridy++;
+        JLabel cryptoScriptLabel = new JLabel("脚本路径（.groovy/.js/.jar）/ jar实现类名:");
+        cryptoPanel.add(cryptoScriptLabel, cryptoGbc);
+        cryptoGbc.gridy++;
+        JPanel cryptoScriptPanel = new JPanel(new BorderLayout());
+        JTextField cryptoScriptPathField = new JTextField(15);
+        cryptoScriptPathField.setText(dnslogConfig.cryptoScriptPath);
+        cryptoScriptPanel.add(cryptoScriptPathField, BorderLayout.CENTER);
+        JButton browseScriptBtn = new JButton("浏览...");
+        browseScriptBtn.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            int result = fileChooser.showOpenDialog(cryptoPanel);
+            if (result == JFileChooser.APPROVE_OPTION) {
+                cryptoScriptPathField.setText(fileChooser.getSelectedFile().getAbsolutePath());
+            }
+        });
+        cryptoScriptPanel.add(browseScriptBtn, BorderLayout.EAST);
+        cryptoPanel.add(cryptoScriptPanel, cryptoGbc);
+        cryptoGbc.gridy++;
+        JTextField cryptoScriptClassField = new JTextField(20);
+        cryptoScriptClassField.setText(dnslogConfig.cryptoScriptClass);
+        cryptoPanel.add(cryptoScriptClassField, cryptoGbc);
+
+        // 引擎切换显隐控制
+        Runnable updateEngineVisibility = () -> {
+            boolean isScript = CryptoEngines.TYPE_SCRIPT.equals(cryptoEngineSelector.getSelectedItem());
+            cryptoScriptLabel.setVisible(isScript);
+            cryptoScriptPanel.setVisible(isScript);
+            cryptoScriptClassField.setVisible(isScript);
+            cryptoWirePanel.setVisible(!isScript);
+            cryptoPanel.revalidate();
+        };
+        cryptoEngineSelector.addItemListener(e -> updateEngineVisibility.run());
+        updateEngineVisibility.run();
+
+        // 4. 在途请求上限与超时配置
+        cryptoGbc.gridy++;
+        cryptoPanel.add(new JLabel("最大在途请求 / 连接超时 / 读取超时（毫秒）:"), cryptoGbc);
+        cryptoGbc.gridy++;
+        JPanel cryptoPoolPanel = new JPanel(new GridLayout(1, 3, 5, 0));
+        JTextField cryptoPoolSizeField = new JTextField(String.valueOf(dnslogConfig.cryptoPoolSize), 4);
+        JTextField cryptoConnectTimeoutField = new JTextField(String.valueOf(dnslogConfig.cryptoConnectTimeoutMs), 6);
+        JTextField cryptoReadTimeoutField = new JTextField(String.valueOf(dnslogConfig.cryptoReadTimeoutMs), 6);
+        cryptoPoolPanel.add(cryptoPoolSizeField);
+        cryptoPoolPanel.add(cryptoConnectTimeoutField);
+        cryptoPoolPanel.add(cryptoReadTimeoutField);
+        cryptoPanel.add(cryptoPoolPanel, cryptoGbc);
+
+        // 5. HTTP/2 开关 + 接口延迟统计
+        cryptoGbc.gridy++;
+        JPanel cryptoOptionPanel = new JPanel(new BorderLayout());
+        JPanel cryptoCheckPanel = new JPanel(new GridLayout(4, 1));
+        JCheckBox cryptoHttp2Check = new JCheckBox("尝试HTTP/2（h2c）");
+        cryptoHttp2Check.setSelected(dnslogConfig.cryptoHttp2Enabled);
+        cryptoCheckPanel.add(cryptoHttp2Check);
+        JCheckBox cryptoBatchCheck = new JCheckBox("扫描时批量加密payload");
+        cryptoBatchCheck.setSelected(dnslogConfig.cryptoBatchEnabled);
+        cryptoCheckPanel.add(cryptoBatchCheck);
+        JCheckBox cryptoCacheCheck = new JCheckBox("缓存加解密结果（仅确定性算法）");
+        cryptoCacheCheck.setSelected(dnslogConfig.cryptoCacheEnabled);
+        cryptoCacheCheck.setToolTipText("相同内容不再重复调用加解密接口；使用随机数/时间戳的加密方案请勿对相应阶段开启");
+        cryptoCheckPanel.add(cryptoCacheCheck);
+        JCheckBox cryptoBypassCheck = new JCheckBox("跳过无需加解密的数据包（静态资源、预检请求等）");
+        cryptoBypassCheck.setSelected(dnslogConfig.cryptoBypassEnabled);
+        cryptoCheckPanel.add(cryptoBypassCheck);
+        cryptoOptionPanel.add(cryptoCheckPanel, BorderLayout.CENTER);
+        JButton cryptoStatsBtn = new JButton("接口延迟统计");
+        cryptoStatsBtn.addActionListener(e -> {
+            JTextArea statsArea = new JTextArea(CryptoBridgeClient.formatStats() + CryptoResultCache.formatStats()
+                    + CryptoBypassRules.formatStats(), 10, 60);
+            statsArea.setEditable(false);
+            statsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            JOptionPane.showMessageDialog(panel, new JScrollPane(statsArea), "加解密接口延迟统计", JOptionPane.INFORMATION_MESSAGE);
+        });
+        JButton cryptoBenchBtn = new JButton("延迟对比测试");
+        cryptoBenchBtn.setToolTipText("向当前接口和对比地址的 /ping 各发送200次请求，对比TCP与Unix域套接字的往返延迟");
+        cryptoBenchBtn.addActionListener(e -> {
+            String compareUrl = JOptionPane.showInputDialog(panel, "对比地址（http://... 或 unix:/path/to.sock，留空只测当前接口）:",
+                    UnixSocketHttpTransport.isUnixAddress(cryptoApiUrlField.getText().trim()) ? "http://127.0.0.1:5000" : "unix:/tmp/jaysenscan.sock");
+            if (compareUrl == null) {
+                return;
+            }
+            String currentUrl = cryptoApiUrlField.getText().trim();
+            cryptoBenchBtn.setEnabled(false);
+            // 测试在后台线程执行，避免阻塞界面
+            new Thread(() -> {
+                String result = CryptoBridgeClient.benchmark(currentUrl, 200);
+                if (!compareUrl.trim().isEmpty()) {
+                    result += CryptoBridgeClient.benchmark(compareUrl.trim(), 200);
+                }
+                String text = result;
+                SwingUtilities.invokeLater(() -> {
+                    cryptoBenchBtn.setEnabled(true);
+                    JTextArea benchArea = new JTextArea(text, 4, 70);
+                    benchArea.setEditable(false);
+                    benchArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+                    JOptionPane.showMessageDialog(panel, new JScrollPane(benchArea), "加解密接口延迟对比", JOptionPane.INFORMATION_MESSAGE);
+                });
+            }, "jaysen-crypto-benchmark").start();
+        });
+        JButton cryptoBypassBtn = new JButton("跳过规则");
+        cryptoBypassBtn.addActionListener(e -> showBypassRulesDialog(panel));
+        JPanel cryptoButtonPanel = new JPanel(new GridLayout(3, 1, 0, 5));
+        cryptoButtonPanel.add(cryptoStatsBtn);
+        cryptoButtonPanel.add(cryptoBenchBtn);
+        cryptoButtonPanel.add(cryptoBypassBtn);
+        cryptoOptionPanel.add(cryptoButtonPanel, BorderLayout.EAST);
+        cryptoPanel.add(cryptoOptionPanel, cryptoGbc);
+
+        // 6. 结果缓存配置
+        cryptoGbc.gridy++;
+        cryptoPanel.add(new JLabel("缓存阶段（逗号分隔）/ 最大条数 / 有效期（秒）:"), cryptoGbc);
+        cryptoGbc.gridy++;
+        JPanel cryptoCachePanel = new JPanel(new BorderLayout(5, 0));
+        JTextField cryptoCacheStagesField = new JTextField(dnslogConfig.cryptoCacheStages, 15);
+        cryptoCachePanel.add(cryptoCacheStagesField, BorderLayout.CENTER);
+        JPanel cryptoCacheLimitPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        JTextField cryptoCacheMaxField = new JTextField(String.valueOf(dnslogConfig.cryptoCacheMaxEntries), 5);
+        JTextField cryptoCacheTtlField = new JTextField(String.valueOf(dnslogConfig.cryptoCacheTtlSeconds), 5);
+        cryptoCacheLimitPanel.add(cryptoCacheMaxField);
+        cryptoCacheLimitPanel.add(cryptoCacheTtlField);
+        cryptoCachePanel.add(cryptoCacheLimitPanel, BorderLayout.EAST);
+        cryptoPanel.add(cryptoCachePanel, cryptoGbc);
+
+        // 7. 熔断配置与状态
+        cryptoGbc.gridy++;
+        JCheckBox cryptoBreakerCheck = new JCheckBox("接口异常时熔断：失败/慢调用比例% / 慢调用阈值 / 熔断时长（毫秒）");
+        cryptoBreakerCheck.setSelected(dnslogConfig.cryptoBreakerEnabled);
+        cryptoPanel.add(cryptoBreakerCheck, cryptoGbc);
+        cryptoGbc.gridy++;
+        JPanel cryptoBreakerPanel = new JPanel(new GridLayout(1, 3, 5, 0));
+        JTextField cryptoBreakerRateField = new JTextField(String.valueOf(dnslogConfig.cryptoBreakerFailureRate), 4);
+        JTextField cryptoBreakerSlowField = new JTextField(String.valueOf(dnslogConfig.cryptoBreakerSlowMs), 6);
+        JTextField cryptoBreakerOpenField = new JTextField(String.valueOf(dnslogConfig.cryptoBreakerOpenMs), 6);
+        cryptoBreakerPanel.add(cryptoBreakerRateField);
+        cryptoBreakerPanel.add(cryptoBreakerSlowField);
+        cryptoBreakerPanel.add(cryptoBreakerOpenField);
+        cryptoPanel.add(cryptoBreakerPanel, cryptoGbc);
+        cryptoGbc.gridy++;
+        JLabel cryptoBreakerStatusLabel = new JLabel("熔断状态：" + CryptoBridgeClient.breakerStatus());
+        cryptoPanel.add(cryptoBreakerStatusLabel, cryptoGbc);
+        // 每秒刷新熔断状态
+        new Timer(1000, e -> cryptoBreakerStatusLabel.setText("熔断状态：" + CryptoBridgeClient.breakerStatus())).start();
+
 
         // ==============================================
         // 第2列：扫描选项
@@ -292,6 +456,166 @@ public class MySuiteTab {
         springCheck.setSelected(dnslogConfig.springScanEnabled);
         scanPanel.add(springCheck, scanGbc);
 
+        scanGbc.gridy++;
+        scanPanel.add(new JLabel("扫描队列满时:"), scanGbc);
+        scanGbc.gridy++;
+        JComboBox<String> overflowSelector = new JComboBox<>(new String[]{
+                PluginTaskExecutor.OVERFLOW_DROP_OLDEST, PluginTaskExecutor.OVERFLOW_SPILL, PluginTaskExecutor.OVERFLOW_DROP_NEW});
+        overflowSelector.setSelectedItem(dnslogConfig.scanOverflowPolicy);
+        overflowSelector.setToolTipText("DROP_OLDEST：丢弃最旧的被动扫描；SPILL：暂存到积压队列稍后执行；DROP_NEW：丢弃新任务");
+        scanPanel.add(overflowSelector, scanGbc);
+
+        scanGbc.gridy++;
+        scanPanel.add(new JLabel("执行模式（重新加载插件后生效）:"), scanGbc);
+        scanGbc.gridy++;
+        JComboBox<String> executorModeSelector = new JComboBox<>(new String[]{
+                PluginTaskExecutor.MODE_PLATFORM, PluginTaskExecutor.MODE_VIRTUAL});
+        executorModeSelector.setSelectedItem(dnslogConfig.scanExecutorMode);
+        executorModeSelector.setToolTipText("virtual：每个扫描任务一个虚拟线程，并发数由下方上限控制");
+        scanPanel.add(executorModeSelector, scanGbc);
+        scanGbc.gridy++;
+        scanPanel.add(new JLabel("最大并发任务 / 单主机在途请求:"), scanGbc);
+        scanGbc.gridy++;
+        JPanel concurrencyPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        JTextField maxConcurrencyField = new JTextField(String.valueOf(dnslogConfig.scanMaxConcurrency), 5);
+        JTextField perHostConcurrencyField = new JTextField(String.valueOf(dnslogConfig.scanPerHostConcurrency), 5);
+        concurrencyPanel.add(maxConcurrencyField);
+        concurrencyPanel.add(perHostConcurrencyField);
+        scanPanel.add(concurrencyPanel, scanGbc);
+        scanGbc.gridy++;
+        scanPanel.add(new JLabel("单主机并发任务 / 单主机每秒请求(0不限):"), scanGbc);
+        scanGbc.gridy++;
+        JPanel perHostPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        JTextField perHostTasksField = new JTextField(String.valueOf(dnslogConfig.scanPerHostTasks), 5);
+        JTextField perHostQpsField = new JTextField(String.valueOf(dnslogConfig.scanPerHostQps), 5);
+        perHostPanel.add(perHostTasksField);
+        perHostPanel.add(perHostQpsField);
+        scanPanel.add(perHostPanel, scanGbc);
+        scanGbc.gridy++;
+        JCheckBox adaptiveCheck = new JCheckBox("自适应限速（最小 / 最大每秒请求 / P90延迟ms）");
+        adaptiveCheck.setSelected(dnslogConfig.scanAdaptiveEnabled);
+        adaptiveCheck.setToolTipText("出现429/503、连接失败或延迟过高时将该主机的速率和并发减半，正常时逐步增加");
+        scanPanel.add(adaptiveCheck, scanGbc);
+        scanGbc.gridy++;
+        JPanel adaptivePanel = new JPanel(new GridLayout(1, 3, 5, 0));
+        JTextField adaptiveMinQpsField = new JTextField(String.valueOf(dnslogConfig.scanAdaptiveMinQps), 4);
+        JTextField adaptiveMaxQpsField = new JTextField(String.valueOf(dnslogConfig.scanAdaptiveMaxQps), 4);
+        JTextField adaptiveLatencyField = new JTextField(String.valueOf(dnslogConfig.scanAdaptiveLatencyMs), 5);
+        adaptivePanel.add(adaptiveMinQpsField);
+        adaptivePanel.add(adaptiveMaxQpsField);
+        adaptivePanel.add(adaptiveLatencyField);
+        scanPanel.add(adaptivePanel, scanGbc);
+        scanGbc.gridy++;
+        JButton hostStatsBtn = new JButton("扫描调度状态");
+        hostStatsBtn.addActionListener(e -> {
+            String stats = executor == null ? "扫描线程池未初始化"
+                    : executor.formatMetrics() + "\n" + executor.formatHostStats()
+                    + "\n\n" + HostLimiter.formatAdaptiveStats()
+                    + "\n\n" + MyHttpHandler.formatDedupStats();
+            JTextArea statsArea = new JTextArea(stats, 20, 80);
+            statsArea.setEditable(false);
+            statsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            JOptionPane.showMessageDialog(panel, new JScrollPane(statsArea), "扫描调度状态", JOptionPane.INFORMATION_MESSAGE);
+        });
+        scanPanel.add(hostStatsBtn, scanGbc);
+        scanGbc.gridy++;
+        JPanel scanControlPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        JToggleButton pauseAllBtn = new JToggleButton("暂停全部扫描", ScanHandle.isGloballyPaused());
+        pauseAllBtn.setToolTipText("排队的被动扫描不再开始，执行中的扫描在发送下一个请求前暂停");
+        pauseAllBtn.addActionListener(e -> {
+            if (executor == null) {
+                return;
+            }
+            if (pauseAllBtn.isSelected()) {
+                executor.pauseAll();
+                pauseAllBtn.setText("继续全部扫描");
+            } else {
+                executor.resumeAll();
+                pauseAllBtn.setText("暂停全部扫描");
+            }
+        });
+        JButton scanTasksBtn = new JButton("扫描任务管理");
+        scanTasksBtn.addActionListener(e -> showScanTasksDialog(panel));
+        scanControlPanel.add(pauseAllBtn);
+        scanControlPanel.add(scanTasksBtn);
+        scanPanel.add(scanControlPanel, scanGbc);
+        scanGbc.gridy++;
+        JPanel journalPanel = new JPanel(new BorderLayout(5, 0));
+        JCheckBox journalCheck = new JCheckBox("任务日志，重启后恢复（每秒恢复任务数）:");
+        journalCheck.setSelected(dnslogConfig.scanJournalEnabled);
+        journalCheck.setToolTipText("在日志目录的journal子目录中记录未完成的扫描任务和待检查的DNSLOG关键词（任务记录包含原始请求及其Cookie等凭据，明文保存），重新加载插件后生效");
+        JTextField journalReplayQpsField = new JTextField(String.valueOf(dnslogConfig.scanJournalReplayQps), 4);
+        journalPanel.add(journalCheck, BorderLayout.CENTER);
+        journalPanel.add(journalReplayQpsField, BorderLayout.EAST);
+        scanPanel.add(journalPanel, scanGbc);
+        scanGbc.gridy++;
+        JCheckBox journalCollabCheck = new JCheckBox("任务日志中保存Collaborator密钥");
+        journalCollabCheck.setSelected(dnslogConfig.scanJournalCollaboratorSecret);
+        journalCollabCheck.setToolTipText("密钥以明文保存在日志文件中，开启后重启Burp仍可查询之前的回连记录");
+        scanPanel.add(journalCollabCheck, scanGbc);
+        scanGbc.gridy++;
+        JPanel dedupPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        dedupPanel.setToolTipText("同一URL同类扫描在有效期内只执行一次；容量重新加载插件后生效");
+        dedupPanel.add(new JLabel("去重有效期(分钟)/容量:"));
+        JPanel dedupFieldsPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        JTextField dedupTtlField = new JTextField(String.valueOf(dnslogConfig.scanDedupTtlMinutes), 4);
+        JTextField dedupMaxEntriesField = new JTextField(String.valueOf(dnslogConfig.scanDedupMaxEntries), 6);
+        dedupFieldsPanel.add(dedupTtlField);
+        dedupFieldsPanel.add(dedupMaxEntriesField);
+        dedupPanel.add(dedupFieldsPanel);
+        scanPanel.add(dedupPanel, scanGbc);
+        scanGbc.gridy++;
+        JPanel indexPanel = new JPanel(new BorderLayout(5, 0));
+        JCheckBox indexCheck = new JCheckBox("持久化去重，跨重启生效（有效期小时）:");
+        indexCheck.setSelected(dnslogConfig.scanIndexEnabled);
+        indexCheck.setToolTipText("在日志目录的index子目录中记录已扫描的端点，payload修改后自动重新扫描");
+        JTextField indexExpiryField = new JTextField(String.valueOf(dnslogConfig.scanIndexExpiryHours), 4);
+        JButton indexClearBtn = new JButton("清空");
+        indexClearBtn.addActionListener(e -> {
+            ScanIndex.clear();
+            JOptionPane.showMessageDialog(panel, "已清空持久化去重索引", "提示", JOptionPane.INFORMATION_MESSAGE);
+        });
+        JPanel indexFieldsPanel = new JPanel(new BorderLayout(5, 0));
+        indexFieldsPanel.add(indexExpiryField, BorderLayout.CENTER);
+        indexFieldsPanel.add(indexClearBtn, BorderLayout.EAST);
+        indexPanel.add(indexCheck, BorderLayout.CENTER);
+        indexPanel.add(indexFieldsPanel, BorderLayout.EAST);
+        scanPanel.add(indexPanel, scanGbc);
+        scanGbc.gridy++;
+        JPanel routePanel = new JPanel(new BorderLayout(5, 0));
+        JCheckBox routeCheck = new JCheckBox("按路由模板去重（变量阈值）:");
+        routeCheck.setSelected(dnslogConfig.scanRouteTemplateEnabled);
+        routeCheck.setToolTipText("数字、UUID、日期、哈希等路径段视为同一接口；末尾路径段的不同取值超过阈值时合并为变量");
+        JTextField routeThresholdField = new JTextField(String.valueOf(dnslogConfig.scanRouteVarThreshold), 4);
+        JButton routeTemplatesBtn = new JButton("模板");
+        routeTemplatesBtn.addActionListener(e -> showRouteTemplatesDialog(panel));
+        JPanel routeFieldsPanel = new JPanel(new BorderLayout(5, 0));
+        routeFieldsPanel.add(routeThresholdField, BorderLayout.CENTER);
+        routeFieldsPanel.add(routeTemplatesBtn, BorderLayout.EAST);
+        routePanel.add(routeCheck, BorderLayout.CENTER);
+        routePanel.add(routeFieldsPanel, BorderLayout.EAST);
+        scanPanel.add(routePanel, scanGbc);
+        scanGbc.gridy++;
+        scanPanel.add(new JLabel("注入点策略 / Log4j注入点类型:"), scanGbc);
+        scanGbc.gridy++;
+        JPanel insertionPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        JComboBox<String> insertionStrategySelector = new JComboBox<>(new String[]{
+                InsertionPoint.STRATEGY_ALL_IN_ONE, InsertionPoint.STRATEGY_PER_POINT, InsertionPoint.STRATEGY_BISECT});
+        insertionStrategySelector.setSelectedItem(dnslogConfig.scanInsertionStrategy);
+        insertionStrategySelector.setToolTipText("ALL_IN_ONE：全部注入点同一请求；PER_POINT：每个注入点单独请求；BISECT：同一请求，被拦截时二分拆分后重试。每个注入点使用独立的DNSLOG子域名");
+        JTextField insertionTypesField = new JTextField(dnslogConfig.scanInsertionTypes, 12);
+        insertionTypesField.setToolTipText("header,url,body,json,cookie,path");
+        insertionPanel.add(insertionStrategySelector);
+        insertionPanel.add(insertionTypesField);
+        scanPanel.add(insertionPanel, scanGbc);
+        scanGbc.gridy++;
+        JPanel fastjsonBudgetPanel = new JPanel(new BorderLayout(5, 0));
+        fastjsonBudgetPanel.add(new JLabel("FastJSON单端点请求上限(0不限):"), BorderLayout.CENTER);
+        JTextField fastjsonBudgetField = new JTextField(String.valueOf(dnslogConfig.scanFastjsonRequestBudget), 4);
+        fastjsonBudgetField.setToolTipText("JSON请求体按包裹位置和嵌套对象分别注入，超出上限时优先保留浅层位置");
+        fastjsonBudgetPanel.add(fastjsonBudgetField, BorderLayout.EAST);
+        scanPanel.add(fastjsonBudgetPanel, scanGbc);
+
         scanGbc.gridy++;
         scanGbc.weighty = 0.5;// 适度填充，避免过短
         scanPanel.add(new JPanel(), scanGbc);
@@ -325,7 +649,31 @@ public class MySuiteTab {
         keywordField.setText(dnslogConfig.filterKeywords);
         dirPanel.add(keywordField, dirGbc);
 
-        // 3. 新增：Spring扫描配置区域（仅勾选Spring扫描时显示）
+        // 3. payload包目录（修改后自动重新加载）和单次扫描payload成本上限
+        dirGbc.gridy++;
+        dirPanel.add(new JLabel("Payload包目录（*.json）:"), dirGbc);
+        dirGbc.gridy++;
+        JPanel packDirPanel = new JPanel(new BorderLayout());
+        JTextField packDirField = new JTextField(15);
+        packDirField.setText(dnslogConfig.payloadPackDir);
+        packDirPanel.add(packDirField, BorderLayout.CENTER);
+        JButton packStatsBtn = new JButton("查看");
+        packStatsBtn.addActionListener(e -> {
+            JTextArea packArea = new JTextArea(PayloadPacks.formatStats(), 20, 70);
+            packArea.setEditable(false);
+            packArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            JOptionPane.showMessageDialog(panel, new JScrollPane(packArea), "Payload包", JOptionPane.INFORMATION_MESSAGE);
+        });
+        packDirPanel.add(packStatsBtn, BorderLayout.EAST);
+        dirPanel.add(packDirPanel, dirGbc);
+        dirGbc.gridy++;
+        JPanel packBudgetPanel = new JPanel(new BorderLayout(5, 0));
+        packBudgetPanel.add(new JLabel("单次扫描payload成本上限(0不限):"), BorderLayout.CENTER);
+        JTextField packBudgetField = new JTextField(String.valueOf(dnslogConfig.scanPayloadCostBudget), 4);
+        packBudgetPanel.add(packBudgetField, BorderLayout.EAST);
+        dirPanel.add(packBudgetPanel, dirGbc);
+
+        // 4. 新增：Spring扫描配置区域（仅勾选Spring扫描时显示）
         dirGbc.gridy++;
         JPanel springScanPanel = new JPanel(new GridBagLayout());
         springScanPanel.setBorder(BorderFactory.createTitledBorder("Spring扫描配置"));
@@ -506,6 +854,7 @@ public class MySuiteTab {
             // 保存目录配置
             String filterExts = extField.getText().trim();
             String filterKeywords = keywordField.getText().trim();
+            String packDir = packDirField.getText().trim();
 
             // 保存Spring扫描配置
             String springKeywords = springKeywordField.getText().trim();
@@ -520,6 +869,158 @@ public class MySuiteTab {
             // 新增：读取加解密配置
             boolean cryptoEnabled = enableCryptoCheck.isSelected();
             String cryptoApiUrl = cryptoApiUrlField.getText().trim();
+            int cryptoPoolSize = dnslogConfig.cryptoPoolSize;
+            int cryptoConnectTimeout = dnslogConfig.cryptoConnectTimeoutMs;
+            int cryptoReadTimeout = dnslogConfig.cryptoReadTimeoutMs;
+            try {
+                cryptoPoolSize = Integer.parseInt(cryptoPoolSizeField.getText().trim());
+                cryptoConnectTimeout = Integer.parseInt(cryptoConnectTimeoutField.getText().trim());
+                cryptoReadTimeout = Integer.parseInt(cryptoReadTimeoutField.getText().trim());
+                if (cryptoPoolSize <= 0 || cryptoConnectTimeout <= 0 || cryptoReadTimeout <= 0) {
+                    errorMsg.append("加解密接口最大在途请求和超时必须为正整数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("加解密接口最大在途请求和超时必须为数字\n");
+            }
+            int cryptoCacheMax = dnslogConfig.cryptoCacheMaxEntries;
+            int cryptoCacheTtl = dnslogConfig.cryptoCacheTtlSeconds;
+            try {
+                cryptoCacheMax = Integer.parseInt(cryptoCacheMaxField.getText().trim());
+                cryptoCacheTtl = Integer.parseInt(cryptoCacheTtlField.getText().trim());
+                if (cryptoCacheMax <= 0 || cryptoCacheTtl <= 0) {
+                    errorMsg.append("结果缓存最大条数和有效期必须为正整数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("结果缓存最大条数和有效期必须为数字\n");
+            }
+            int cryptoBreakerRate = dnslogConfig.cryptoBreakerFailureRate;
+            int cryptoBreakerSlow = dnslogConfig.cryptoBreakerSlowMs;
+            int cryptoBreakerOpen = dnslogConfig.cryptoBreakerOpenMs;
+            try {
+                cryptoBreakerRate = Integer.parseInt(cryptoBreakerRateField.getText().trim());
+                cryptoBreakerSlow = Integer.parseInt(cryptoBreakerSlowField.getText().trim());
+                cryptoBreakerOpen = Integer.parseInt(cryptoBreakerOpenField.getText().trim());
+                if (cryptoBreakerRate <= 0 || cryptoBreakerRate > 100) {
+                    errorMsg.append("熔断失败比例必须在1-100之间\n");
+                }
+                if (cryptoBreakerSlow <= 0 || cryptoBreakerOpen <= 0) {
+                    errorMsg.append("慢调用阈值和熔断时长必须为正整数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("熔断配置必须为数字\n");
+            }
+            int scanMaxConcurrency = dnslogConfig.scanMaxConcurrency;
+            int scanPerHostConcurrency = dnslogConfig.scanPerHostConcurrency;
+            try {
+                scanMaxConcurrency = Integer.parseInt(maxConcurrencyField.getText().trim());
+                scanPerHostConcurrency = Integer.parseInt(perHostConcurrencyField.getText().trim());
+                if (scanMaxConcurrency <= 0 || scanPerHostConcurrency <= 0) {
+                    errorMsg.append("最大并发任务和单主机在途请求必须为正整数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("最大并发任务和单主机在途请求必须为数字\n");
+            }
+            int scanPerHostTasks = dnslogConfig.scanPerHostTasks;
+            int scanPerHostQps = dnslogConfig.scanPerHostQps;
+            try {
+                scanPerHostTasks = Integer.parseInt(perHostTasksField.getText().trim());
+                scanPerHostQps = Integer.parseInt(perHostQpsField.getText().trim());
+                if (scanPerHostTasks <= 0 || scanPerHostQps < 0) {
+                    errorMsg.append("单主机并发任务必须为正整数，单主机每秒请求不能为负数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("单主机并发任务和每秒请求必须为数字\n");
+            }
+            int scanJournalReplayQps = dnslogConfig.scanJournalReplayQps;
+            try {
+                scanJournalReplayQps = Integer.parseInt(journalReplayQpsField.getText().trim());
+                if (scanJournalReplayQps <= 0) {
+                    errorMsg.append("每秒恢复任务数必须为正整数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("每秒恢复任务数必须为数字\n");
+            }
+            int scanDedupTtlMinutes = dnslogConfig.scanDedupTtlMinutes;
+            int scanDedupMaxEntries = dnslogConfig.scanDedupMaxEntries;
+            try {
+                scanDedupTtlMinutes = Integer.parseInt(dedupTtlField.getText().trim());
+                scanDedupMaxEntries = Integer.parseInt(dedupMaxEntriesField.getText().trim());
+                if (scanDedupTtlMinutes <= 0 || scanDedupMaxEntries <= 0) {
+                    errorMsg.append("去重有效期和容量必须为正整数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("去重有效期和容量必须为数字\n");
+            }
+            int scanIndexExpiryHours = dnslogConfig.scanIndexExpiryHours;
+            try {
+                scanIndexExpiryHours = Integer.parseInt(indexExpiryField.getText().trim());
+                if (scanIndexExpiryHours <= 0) {
+                    errorMsg.append("持久化去重有效期必须为正整数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("持久化去重有效期必须为数字\n");
+            }
+            if (packDir.isEmpty()) {
+                errorMsg.append("Payload包目录不能为空\n");
+            }
+            int scanPayloadCostBudget = dnslogConfig.scanPayloadCostBudget;
+            try {
+                scanPayloadCostBudget = Integer.parseInt(packBudgetField.getText().trim());
+                if (scanPayloadCostBudget < 0) {
+                    errorMsg.append("payload成本上限不能为负数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("payload成本上限必须为数字\n");
+            }
+            int scanRouteVarThreshold = dnslogConfig.scanRouteVarThreshold;
+            try {
+                scanRouteVarThreshold = Integer.parseInt(routeThresholdField.getText().trim());
+                if (scanRouteVarThreshold < 2) {
+                    errorMsg.append("路由模板变量阈值必须不小于2\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("路由模板变量阈值必须为数字\n");
+            }
+            String scanInsertionTypes = insertionTypesField.getText().trim();
+            try {
+                if (InsertionPoint.parseTypes(scanInsertionTypes).isEmpty()) {
+                    errorMsg.append("Log4j注入点类型不能为空\n");
+                }
+            } catch (IllegalArgumentException ex) {
+                errorMsg.append(ex.getMessage()).append("\n");
+            }
+            int scanFastjsonRequestBudget = dnslogConfig.scanFastjsonRequestBudget;
+            try {
+                scanFastjsonRequestBudget = Integer.parseInt(fastjsonBudgetField.getText().trim());
+                if (scanFastjsonRequestBudget < 0) {
+                    errorMsg.append("FastJSON单端点请求上限不能为负数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("FastJSON单端点请求上限必须为数字\n");
+            }
+            boolean scanAdaptiveEnabled = adaptiveCheck.isSelected();
+            int scanAdaptiveMinQps = dnslogConfig.scanAdaptiveMinQps;
+            int scanAdaptiveMaxQps = dnslogConfig.scanAdaptiveMaxQps;
+            int scanAdaptiveLatencyMs = dnslogConfig.scanAdaptiveLatencyMs;
+            try {
+                scanAdaptiveMinQps = Integer.parseInt(adaptiveMinQpsField.getText().trim());
+                scanAdaptiveMaxQps = Integer.parseInt(adaptiveMaxQpsField.getText().trim());
+                scanAdaptiveLatencyMs = Integer.parseInt(adaptiveLatencyField.getText().trim());
+                if (scanAdaptiveMinQps <= 0 || scanAdaptiveMaxQps < scanAdaptiveMinQps || scanAdaptiveLatencyMs <= 0) {
+                    errorMsg.append("自适应限速的最小速率和延迟阈值必须为正整数，且最大速率不小于最小速率\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("自适应限速配置必须为数字\n");
+            }
+            String cryptoEngineType = (String) cryptoEngineSelector.getSelectedItem();
+            String cryptoScriptPath = cryptoScriptPathField.getText().trim();
+            if (cryptoEnabled && CryptoEngines.TYPE_SCRIPT.equals(cryptoEngineType)) {
+                if (!new File(cryptoScriptPath).isFile()) {
+                    errorMsg.append("加解密脚本路径必须是存在的文件\n");
+                } else if (cryptoScriptPath.toLowerCase().endsWith(".jar") && cryptoScriptClassField.getText().trim().isEmpty()) {
+                    errorMsg.append("使用jar加解密时需填写实现类名\n");
+                }
+            }
             if (logEnabled && logPath.isEmpty()) {
                 errorMsg.append("日志存储位置不能为空\n");
             }
@@ -586,8 +1087,9 @@ public class MySuiteTab {
             if (cryptoEnabled && cryptoApiUrl.isEmpty()) {
                 errorMsg.append("启用接口加解密时，接口链接不能为空\n");
             }
-            if (cryptoEnabled && !cryptoApiUrl.startsWith("http://") && !cryptoApiUrl.startsWith("https://")) {
-                errorMsg.append("接口链接格式错误，需以http://或https://开头\n");
+            if (cryptoEnabled && !cryptoApiUrl.startsWith("http://") && !cryptoApiUrl.startsWith("https://")
+                    && !UnixSocketHttpTransport.isUnixAddress(cryptoApiUrl)) {
+                errorMsg.append("接口链接格式错误，需以http://、https://或unix:开头\n");
             }
 
             // 保存到配置
@@ -601,6 +1103,28 @@ public class MySuiteTab {
             config.fastJsonScanEnabled = fastJsonEnabled;
             config.log4jScanEnabled = log4jEnabled;
             config.springScanEnabled = springEnabled;
+            config.scanOverflowPolicy = (String) overflowSelector.getSelectedItem();
+            config.scanExecutorMode = (String) executorModeSelector.getSelectedItem();
+            config.scanMaxConcurrency = scanMaxConcurrency;
+            config.scanPerHostConcurrency = scanPerHostConcurrency;
+            config.scanPerHostTasks = scanPerHostTasks;
+            config.scanPerHostQps = scanPerHostQps;
+            config.scanJournalEnabled = journalCheck.isSelected();
+            config.scanJournalReplayQps = scanJournalReplayQps;
+            config.scanJournalCollaboratorSecret = journalCollabCheck.isSelected();
+            config.scanDedupTtlMinutes = scanDedupTtlMinutes;
+            config.scanDedupMaxEntries = scanDedupMaxEntries;
+            config.scanIndexEnabled = indexCheck.isSelected();
+            config.scanIndexExpiryHours = scanIndexExpiryHours;
+            config.scanRouteTemplateEnabled = routeCheck.isSelected();
+            config.scanRouteVarThreshold = scanRouteVarThreshold;
+            config.scanInsertionStrategy = (String) insertionStrategySelector.getSelectedItem();
+            config.scanInsertionTypes = scanInsertionTypes;
+            config.scanFastjsonRequestBudget = scanFastjsonRequestBudget;
+            config.scanAdaptiveEnabled = scanAdaptiveEnabled;
+            config.scanAdaptiveMinQps = scanAdaptiveMinQps;
+            config.scanAdaptiveMaxQps = scanAdaptiveMaxQps;
+            config.scanAdaptiveLatencyMs = scanAdaptiveLatencyMs;
             config.logEnabled = logEnabled;
             config.logPath = logPath;
             config.logRetentionDays = retentionDays;
@@ -608,9 +1132,33 @@ public class MySuiteTab {
             config.filterKeywords = filterKeywords;
             config.springScanKeywords = springKeywords;
             config.springScanFilePath = springFilePath;
+            boolean packDirChanged = !packDir.equals(config.payloadPackDir);
+            config.payloadPackDir = packDir;
+            config.scanPayloadCostBudget = scanPayloadCostBudget;
+            if (packDirChanged) {
+                PayloadPacks.reloadDir();
+            }
             // 新增：保存加解密配置
             config.cryptoEnabled = cryptoEnabled;
             config.cryptoApiUrl = cryptoApiUrl;
+            config.cryptoPoolSize = cryptoPoolSize;
+            config.cryptoConnectTimeoutMs = cryptoConnectTimeout;
+            config.cryptoReadTimeoutMs = cryptoReadTimeout;
+            config.cryptoHttp2Enabled = cryptoHttp2Check.isSelected();
+            config.cryptoBatchEnabled = cryptoBatchCheck.isSelected();
+            config.cryptoWireFormat = (String) cryptoWireSelector.getSelectedItem();
+            config.cryptoEngineType = cryptoEngineType;
+            config.cryptoScriptPath = cryptoScriptPath;
+            config.cryptoScriptClass = cryptoScriptClassField.getText().trim();
+            config.cryptoCacheEnabled = cryptoCacheCheck.isSelected();
+            config.cryptoCacheStages = cryptoCacheStagesField.getText().trim();
+            config.cryptoCacheMaxEntries = cryptoCacheMax;
+            config.cryptoCacheTtlSeconds = cryptoCacheTtl;
+            config.cryptoBypassEnabled = cryptoBypassCheck.isSelected();
+            config.cryptoBreakerEnabled = cryptoBreakerCheck.isSelected();
+            config.cryptoBreakerFailureRate = cryptoBreakerRate;
+            config.cryptoBreakerSlowMs = cryptoBreakerSlow;
+            config.cryptoBreakerOpenMs = cryptoBreakerOpen;
 
             // 持久化
             try {
@@ -665,6 +1213,201 @@ public class MySuiteTab {
         return mainConfigPanel;
     }
 
+    // 编辑加解密跳过规则（确定后立即保存）
+    // 扫描线程池在插件初始化时创建，用于展示各主机的调度状态
+    public void setExecutor(PluginTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    // 扫描任务列表：暂停/继续/取消选中的任务，或取消同一主机的全部任务
+    private void showScanTasksDialog(Component parent) {
+        if (executor == null) {
+            JOptionPane.showMessageDialog(parent, "扫描线程池未初始化", "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        DefaultTableModel model = new DefaultTableModel(new String[]{"ID", "目标主机", "任务", "状态", "已等待(秒)"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        List<ScanHandle> shown = new ArrayList<>();
+        Runnable refresh = () -> {
+            shown.clear();
+            shown.addAll(executor.getScans());
+            model.setRowCount(0);
+            long now = System.currentTimeMillis();
+            for (ScanHandle handle : shown) {
+                model.addRow(new Object[]{handle.getId(), handle.getHostKey(), handle.getDescription(),
+                        handle.getState(), (now - handle.getCreatedAt()) / 1000});
+            }
+        };
+        refresh.run();
+        JTable table = new JTable(model);
+        table.getColumnModel().getColumn(2).setPreferredWidth(300);
+        JButton pauseBtn = new JButton("暂停");
+        JButton resumeBtn = new JButton("继续");
+        JButton cancelBtn = new JButton("取消");
+        JButton cancelHostBtn = new JButton("取消该主机全部任务");
+        JButton refreshBtn = new JButton("刷新");
+        pauseBtn.addActionListener(e -> {
+            for (int row : table.getSelectedRows()) {
+                shown.get(row).pause();
+            }
+            refresh.run();
+        });
+        resumeBtn.addActionListener(e -> {
+            for (int row : table.getSelectedRows()) {
+                shown.get(row).resume();
+            }
+            refresh.run();
+        });
+        cancelBtn.addActionListener(e -> {
+            for (int row : table.getSelectedRows()) {
+                shown.get(row).cancel();
+            }
+            refresh.run();
+        });
+        cancelHostBtn.addActionListener(e -> {
+            int row = table.getSelectedRow();
+            if (row < 0) {
+                return;
+            }
+            String hostKey = shown.get(row).getHostKey();
+            int count = executor.cancelHost(hostKey);
+            refresh.run();
+            JOptionPane.showMessageDialog(table, "已取消 " + hostKey + " 的 " + count + " 个任务", "提示", JOptionPane.INFORMATION_MESSAGE);
+        });
+        refreshBtn.addActionListener(e -> refresh.run());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(pauseBtn);
+        buttons.add(resumeBtn);
+        buttons.add(cancelBtn);
+        buttons.add(cancelHostBtn);
+        buttons.add(refreshBtn);
+        JPanel content = new JPanel(new BorderLayout(0, 5));
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(800, 350));
+        content.add(scrollPane, BorderLayout.CENTER);
+        content.add(buttons, BorderLayout.SOUTH);
+        JOptionPane.showMessageDialog(parent, content, "扫描任务管理", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    private void showRouteTemplatesDialog(Component parent) {
+        DefaultTableModel model = new DefaultTableModel(new String[]{"主机", "路由模板", "请求次数"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        Runnable refresh = () -> {
+            model.setRowCount(0);
+            for (Object[] row : RouteTemplateLearner.getInstance().snapshot()) {
+                model.addRow(row);
+            }
+        };
+        refresh.run();
+        JTable table = new JTable(model);
+        table.getColumnModel().getColumn(1).setPreferredWidth(400);
+        JButton refreshBtn = new JButton("刷新");
+        JButton clearBtn = new JButton("清空");
+        JButton benchmarkBtn = new JButton("评估代理历史");
+        benchmarkBtn.setToolTipText("用代理历史中的请求评估按模板去重可减少的扫描任务（与被动扫描使用相同的过滤规则）");
+        refreshBtn.addActionListener(e -> refresh.run());
+        clearBtn.addActionListener(e -> {
+            RouteTemplateLearner.getInstance().clear();
+            refresh.run();
+        });
+        benchmarkBtn.addActionListener(e -> {
+            benchmarkBtn.setEnabled(false);
+            // 评估在后台线程执行，避免阻塞界面
+            new Thread(() -> {
+                String targetDomain = DnslogConfig.getInstance().targetDomain;
+                List<String> urls = new ArrayList<>();
+                for (ProxyHttpRequestResponse item : montoyaApi.proxy().history()) {
+                    HttpRequest request = item.finalRequest();
+                    String host = request.httpService().host();
+                    if (UrlFilter.isPotenialUrl(request.url()) && (targetDomain.isEmpty() || "*".equals(targetDomain) || host.contains(targetDomain))) {
+                        urls.add(MyHttpHandler.standardizeUrl(request.url()));
+                    }
+                }
+                String result = RouteTemplateLearner.benchmark(urls);
+                SwingUtilities.invokeLater(() -> {
+                    benchmarkBtn.setEnabled(true);
+                    JTextArea benchArea = new JTextArea(result, 5, 60);
+                    benchArea.setEditable(false);
+                    benchArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+                    JOptionPane.showMessageDialog(table, new JScrollPane(benchArea), "路由模板去重评估", JOptionPane.INFORMATION_MESSAGE);
+                });
+            }, "jaysen-route-benchmark").start();
+        });
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(refreshBtn);
+        buttons.add(clearBtn);
+        buttons.add(benchmarkBtn);
+        JPanel content = new JPanel(new BorderLayout(0, 5));
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(800, 350));
+        content.add(scrollPane, BorderLayout.CENTER);
+        content.add(buttons, BorderLayout.SOUTH);
+        JOptionPane.showMessageDialog(parent, content, "路由模板", JOptionPane.PLAIN_MESSAGE);
+    }
+
+    private void showBypassRulesDialog(Component parent) {
+        DnslogConfig config = DnslogConfig.getInstance();
+        JTextField methodsField = new JTextField(config.cryptoBypassMethods, 30);
+        JTextField contentTypesField = new JTextField(config.cryptoBypassContentTypes, 30);
+        JTextField pathRegexField = new JTextField(config.cryptoBypassPathRegex, 30);
+        JTextField maxBodyField = new JTextField(String.valueOf(config.cryptoBypassMaxBodyBytes), 10);
+        JTextField bodyPrefixesField = new JTextField(config.cryptoBypassBodyPrefixes, 30);
+        JCheckBox emptyGetCheck = new JCheckBox("跳过无body且无URL参数的GET请求", config.cryptoBypassEmptyGet);
+        JPanel form = new JPanel(new GridLayout(0, 1, 0, 3));
+        form.add(new JLabel("请求方法（逗号分隔）:"));
+        form.add(methodsField);
+        form.add(new JLabel("Content-Type前缀（逗号分隔，请求和响应均适用）:"));
+        form.add(contentTypesField);
+        form.add(new JLabel("请求路径正则:"));
+        form.add(pathRegexField);
+        form.add(new JLabel("body超过该字节数时跳过（0为不限制）:"));
+        form.add(maxBodyField);
+        form.add(new JLabel("body前缀（逗号分隔，如 GIF8,%PDF,PK）:"));
+        form.add(bodyPrefixesField);
+        form.add(emptyGetCheck);
+        while (JOptionPane.showConfirmDialog(parent, form, "加解密跳过规则", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) == JOptionPane.OK_OPTION) {
+            StringBuilder errorMsg = new StringBuilder();
+            String regexError = CryptoBypassRules.validatePathRegex(pathRegexField.getText());
+            if (regexError != null) {
+                errorMsg.append("路径正则格式错误：").append(regexError).append("\n");
+            }
+            long maxBody = 0;
+            try {
+                maxBody = Long.parseLong(maxBodyField.getText().trim());
+                if (maxBody < 0) {
+                    errorMsg.append("body大小上限不能为负数\n");
+                }
+            } catch (NumberFormatException ex) {
+                errorMsg.append("body大小上限必须为数字\n");
+            }
+            if (errorMsg.length() > 0) {
+                JOptionPane.showMessageDialog(parent, errorMsg.toString(), "保存失败", JOptionPane.ERROR_MESSAGE);
+                continue;
+            }
+            config.cryptoBypassMethods = methodsField.getText().trim();
+            config.cryptoBypassContentTypes = contentTypesField.getText().trim();
+            config.cryptoBypassPathRegex = pathRegexField.getText().trim();
+            config.cryptoBypassMaxBodyBytes = maxBody;
+            config.cryptoBypassBodyPrefixes = bodyPrefixesField.getText().trim();
+            config.cryptoBypassEmptyGet = emptyGetCheck.isSelected();
+            try {
+                config.save();
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(parent, "保存失败：" + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+            }
+            return;
+        }
+    }
+
     private void toggleConfigPanel() {
         configExpanded = !configExpanded;
         configPanel.setVisible(configExpanded);
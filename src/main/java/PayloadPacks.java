@@ -0,0 +1,373 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 外部payload包（payloadPackDir目录下的*.json文件），修改后自动重新加载并预编译
+ * 文件格式：
+ * {"name": 包名, "version": 版本, "enabled": true, "family": 默认漏洞类型, "hosts": [适用主机，匹配该主机及其子域名，空为全部],
+ *  "payloads": [{"id": 编号, "family": "fastjson/log4j", "contentTypes": [适用的Content-Type前缀，"none"匹配无Content-Type的请求，空为全部],
+ *                "cost": 成本, "payload": JSON对象/数组或字符串（字符串原样发送），域名占位符为 {{domain}}}]}
+ * 扫描时按漏洞类型、目标主机和Content-Type选出适用的payload，配置了成本上限时按文件顺序选取不超过上限的payload
+ * 目录中没有payload包时写入内置payload（fastjson.json、log4j.json）；加载前、以及某个漏洞类型没有可用payload时使用内置payload
+ * 重新加载在LOCK内串行执行，结果作为一个不可变快照整体发布
+ */
+public class PayloadPacks {
+    public static final String FAMILY_FASTJSON = "fastjson";
+    public static final String FAMILY_LOG4J = "log4j";
+    // 文件变化后等待的时间，合并编辑器保存时产生的多次事件（毫秒）
+    private static final long RELOAD_DELAY_MS = 300;
+
+    private static final Object LOCK = new Object();
+    private static volatile Snapshot snapshot = new Snapshot(builtins(), Collections.emptyList());
+    private static MontoyaApi montoyaApi;
+    private static WatchService watchService;
+    private static Path packDir;
+
+    // payload元数据，与Family.template中的payload一一对应
+    private record Entry(String pack, String id, List<String> contentTypes, List<String> hosts, int cost) {
+    }
+
+    // 同一漏洞类型的全部payload
+    private record Family(List<Entry> entries, PayloadTemplate template, String version) {
+    }
+
+    // 一次加载的结果：各漏洞类型的payload和已加载的包
+    private record Snapshot(Map<String, Family> families, List<String> packs) {
+    }
+
+    private PayloadPacks() {
+    }
+
+    // 加载payload包并监视目录变化
+    public static void initialize(MontoyaApi api) {
+        montoyaApi = api;
+        Path dir = Paths.get(DnslogConfig.getInstance().payloadPackDir);
+        synchronized (LOCK) {
+            packDir = dir;
+            try {
+                writeDefaults(dir);
+                reload();
+                watchService = FileSystems.getDefault().newWatchService();
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                api.logging().logToError("payload包目录监视失败：" + e.getMessage());
+                return;
+            }
+            WatchService service = watchService;
+            Thread watcher = new Thread(() -> watch(service), "burp-plugin-payload-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    // 配置面板修改目录后重新加载
+    public static void reloadDir() {
+        if (montoyaApi == null) {
+            return;
+        }
+        close();
+        initialize(montoyaApi);
+    }
+
+    public static void close() {
+        synchronized (LOCK) {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                }
+                watchService = null;
+            }
+        }
+    }
+
+    private static void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                key.pollEvents();
+                key.reset();
+                // 合并短时间内的多次修改
+                Thread.sleep(RELOAD_DELAY_MS);
+                WatchKey more;
+                while ((more = service.poll()) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 插件卸载或目录变更，结束监视
+        }
+    }
+
+    // 重新加载目录下的全部payload包，解析失败的文件被跳过（监视线程和配置面板可能同时调用，在LOCK内串行执行）
+    public static void reload() {
+        synchronized (LOCK) {
+            if (packDir == null) {
+                return;
+            }
+            Map<String, List<Entry>> entries = new TreeMap<>();
+            Map<String, List<Object>> elements = new HashMap<>();
+            List<String> packs = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(packDir, "*.json")) {
+                List<Path> files = new ArrayList<>();
+                stream.forEach(files::add);
+                Collections.sort(files);
+                for (Path file : files) {
+                    try {
+                        String pack = loadPack(file, entries, elements);
+                        if (pack != null) {
+                            packs.add(pack);
+                        }
+                    } catch (Exception e) {
+                        log("payload包 " + file.getFileName() + " 解析失败：" + e.getMessage(), true);
+                    }
+                }
+            } catch (IOException e) {
+                log("读取payload包目录失败：" + e.getMessage(), true);
+                return;
+            }
+            Map<String, Family> compiled = new HashMap<>();
+            for (Map.Entry<String, List<Entry>> family : entries.entrySet()) {
+                PayloadTemplate template = PayloadTemplate.fromElements(elements.get(family.getKey()));
+                compiled.put(family.getKey(), new Family(family.getValue(), template, version(family.getValue(), template)));
+            }
+            // payload包被全部删除或禁用时回退到内置payload，避免扫描不发送任何payload
+            for (Map.Entry<String, Family> builtin : builtins().entrySet()) {
+                if (!compiled.containsKey(builtin.getKey())) {
+                    compiled.put(builtin.getKey(), builtin.getValue());
+                    log("payload包中没有可用的" + builtin.getKey() + " payload，使用内置payload", true);
+                }
+            }
+            snapshot = new Snapshot(Collections.unmodifiableMap(compiled), Collections.unmodifiableList(packs));
+            log("已加载payload包：" + packs, false);
+        }
+    }
+
+    // 解析单个payload包，返回“包名 v版本（payload数）”，未启用时返回null
+    private static String loadPack(Path file, Map<String, List<Entry>> entries, Map<String, List<Object>> elements) throws IOException {
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+        JSONObject pack = JSON.parseObject(PayloadTemplate.mark(text, Config.DOMAIN_PLACEHOLDER));
+        if (pack == null || !pack.getBooleanValue("enabled", true)) {
+            return null;
+        }
+        String fileName = file.getFileName().toString();
+        String name = pack.getString("name") != null ? pack.getString("name") : fileName.substring(0, fileName.length() - 5);
+        String packLabel = name + " v" + pack.getIntValue("version", 1);
+        List<String> hosts = lowerCaseList(pack.getJSONArray("hosts"));
+        JSONArray payloads = pack.getJSONArray("payloads");
+        int count = 0;
+        for (int i = 0; payloads != null && i < payloads.size(); i++) {
+            JSONObject payload = payloads.getJSONObject(i);
+            String family = payload.getString("family") != null ? payload.getString("family") : pack.getString("family");
+            if (family == null || !PayloadTemplate.isPayload(payload.get("payload"))) {
+                log("payload包 " + fileName + " 第" + (i + 1) + "个payload缺少family或payload，已跳过", true);
+                continue;
+            }
+            family = family.toLowerCase(Locale.ROOT);
+            String id = payload.getString("id") != null ? payload.getString("id") : name + "-" + (i + 1);
+            entries.computeIfAbsent(family, k -> new ArrayList<>()).add(new Entry(packLabel, id,
+                    lowerCaseList(payload.getJSONArray("contentTypes")), hosts, Math.max(0, payload.getIntValue("cost", 1))));
+            elements.computeIfAbsent(family, k -> new ArrayList<>()).add(payload.get("payload"));
+            count++;
+        }
+        return packLabel + "（" + count + "）";
+    }
+
+    private static List<String> lowerCaseList(JSONArray array) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; array != null && i < array.size(); i++) {
+            String value = array.getString(i);
+            if (value != null && !value.trim().isEmpty()) {
+                list.add(value.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 选出适用于该请求的payload
+     * @param family 漏洞类型（FAMILY_FASTJSON / FAMILY_LOG4J）
+     */
+    public static PayloadTemplate select(String family, HttpRequest request) {
+        Family loaded = snapshot.families().get(family);
+        if (loaded == null) {
+            return PayloadTemplate.fromElements(Collections.emptyList());
+        }
+        String host = request.httpService().host().toLowerCase(Locale.ROOT);
+        String contentType = request.headerValue("Content-Type");
+        contentType = contentType == null ? null : contentType.trim().toLowerCase(Locale.ROOT);
+        int budget = DnslogConfig.getInstance().scanPayloadCostBudget;
+        int[] indexes = new int[loaded.entries.size()];
+        int count = 0;
+        int cost = 0;
+        for (int i = 0; i < loaded.entries.size(); i++) {
+            Entry entry = loaded.entries.get(i);
+            if (!matchesHost(entry, host) || !matchesContentType(entry, contentType)
+                    || budget > 0 && cost + entry.cost > budget) {
+                continue;
+            }
+            cost += entry.cost;
+            indexes[count++] = i;
+        }
+        // 全部适用时直接使用已编译的模板
+        return count == indexes.length ? loaded.template : loaded.template.subset(Arrays.copyOf(indexes, count));
+    }
+
+    private static boolean matchesHost(Entry entry, String host) {
+        if (entry.hosts.isEmpty()) {
+            return true;
+        }
+        for (String pattern : entry.hosts) {
+            // 匹配主机本身或其子域名（按点分隔），example.com 不匹配 badexample.com
+            String domain = pattern.startsWith("*.") ? pattern.substring(2) : pattern.startsWith(".") ? pattern.substring(1) : pattern;
+            if (host.equals(domain) || host.endsWith("." + domain)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesContentType(Entry entry, String contentType) {
+        if (entry.contentTypes.isEmpty()) {
+            return true;
+        }
+        for (String type : entry.contentTypes) {
+            if ("*".equals(type) || (contentType == null ? "none".equals(type) : contentType.startsWith(type))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // payload集合版本：包名、版本、编号和payload内容的哈希，修改payload包后持久化去重索引重新扫描
+    public static String version(String family) {
+        Family loaded = snapshot.families().get(family);
+        return loaded == null ? "" : loaded.version;
+    }
+
+    private static String version(List<Entry> entries, PayloadTemplate template) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            sb.append(entry.pack).append('\n').append(entry.id).append('\n').append(template.render(i, "")).append('\n');
+        }
+        return Long.toHexString(DedupCache.key(sb.toString()));
+    }
+
+    public static String formatStats() {
+        Snapshot current = snapshot;
+        StringBuilder sb = new StringBuilder("payload包：" + current.packs());
+        for (Map.Entry<String, Family> family : new TreeMap<>(current.families()).entrySet()) {
+            sb.append("\n").append(family.getKey()).append("：");
+            for (Entry entry : family.getValue().entries) {
+                sb.append("\n  ").append(entry.id).append("  [").append(entry.pack).append("] 成本=").append(entry.cost);
+                if (!entry.contentTypes.isEmpty()) {
+                    sb.append(" Content-Type=").append(entry.contentTypes);
+                }
+                if (!entry.hosts.isEmpty()) {
+                    sb.append(" 主机=").append(entry.hosts);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    // 加载前使用的内置payload
+    private static Map<String, Family> builtins() {
+        Map<String, Family> map = new HashMap<>();
+        map.put(FAMILY_FASTJSON, builtin(FAMILY_FASTJSON, Config.FASTJSON_PAYLOADS));
+        map.put(FAMILY_LOG4J, builtin(FAMILY_LOG4J, Config.LOG4J_PAYLOADS));
+        return map;
+    }
+
+    private static Family builtin(String family, PayloadTemplate template) {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < template.size(); i++) {
+            entries.add(new Entry("内置", String.format("%s-%02d", family, i + 1), Collections.emptyList(), Collections.emptyList(), 1));
+        }
+        return new Family(entries, template, version(entries, template));
+    }
+
+    // 目录中没有payload包时写入内置payload，便于按目标裁剪
+    private static void writeDefaults(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.json")) {
+            if (stream.iterator().hasNext()) {
+                return;
+            }
+        }
+        writeDefaultPack(dir.resolve("fastjson.json"), FAMILY_FASTJSON, Config.FASTJSON_TEMPLATE);
+        writeDefaultPack(dir.resolve("log4j.json"), FAMILY_LOG4J, Config.LOG4J_TEMPLATE);
+    }
+
+    private static void writeDefaultPack(Path file, String family, String template) throws IOException {
+        JSONArray elements = JSONArray.parseArray(template);
+        JSONArray payloads = new JSONArray();
+        for (int i = 0; i < elements.size(); i++) {
+            JSONObject payload = new JSONObject();
+            payload.put("id", String.format("%s-%02d", family, i + 1));
+            payload.put("family", family);
+            payload.put("contentTypes", new JSONArray());
+            payload.put("cost", 1);
+            payload.put("payload", elements.get(i));
+            payloads.add(payload);
+        }
+        JSONObject pack = new JSONObject();
+        pack.put("name", family + "-builtin");
+        pack.put("version", 1);
+        pack.put("enabled", true);
+        pack.put("hosts", new JSONArray());
+        pack.put("payloads", payloads);
+        Files.writeString(file, JSON.toJSONString(pack, JSONWriter.Feature.PrettyFormat), StandardCharsets.UTF_8);
+    }
+
+    private static void log(String message, boolean error) {
+        if (montoyaApi == null) {
+            return;
+        }
+        if (error) {
+            montoyaApi.logging().logToError(message);
+        } else {
+            montoyaApi.logging().logToOutput(message);
+        }
+    }
+}
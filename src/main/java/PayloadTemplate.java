@@ -0,0 +1,157 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的payload模板
+ * 模板为JSON数组，元素为JSON对象/数组（序列化后作为payload）或字符串；
+ * 编译时只解析和序列化一次，每个payload按域名占位符切分为若干片段（同时保存URL编码后的片段），
+ * 扫描时只需把域名拼接到片段之间
+ */
+public class PayloadTemplate {
+    // 编译时代替占位符的标记，解析和序列化JSON时保持不变
+    private static final String MARKER = "jaysenpayloaddomainmarker";
+
+    private final String[][] segments;
+    private final String[][] encodedSegments;
+    private final int[] literalLengths;
+    private final int[] encodedLengths;
+
+    private PayloadTemplate(String[][] segments, String[][] encodedSegments, int[] literalLengths, int[] encodedLengths) {
+        this.segments = segments;
+        this.encodedSegments = encodedSegments;
+        this.literalLengths = literalLengths;
+        this.encodedLengths = encodedLengths;
+    }
+
+    /**
+     * 编译模板，空字符串和非JSON对象/数组/字符串的元素被忽略
+     * @param placeholder 模板中的域名占位符
+     */
+    public static PayloadTemplate compile(String template, String placeholder) {
+        return fromElements(JSONArray.parseArray(mark(template, placeholder)));
+    }
+
+    // 将文本中的占位符替换为编译标记，替换后的文本解析出的元素可用于fromElements
+    public static String mark(String text, String placeholder) {
+        return text.replace(placeholder, MARKER);
+    }
+
+    // 是否为可用的payload元素（JSON对象/数组或非空字符串）
+    public static boolean isPayload(Object element) {
+        return element instanceof JSONObject || element instanceof JSONArray
+                || element instanceof String str && !str.trim().isEmpty();
+    }
+
+    // 由已解析的元素编译，不可用的元素被忽略
+    public static PayloadTemplate fromElements(List<?> elements) {
+        List<String[]> segments = new ArrayList<>();
+        List<String[]> encodedSegments = new ArrayList<>();
+        for (Object element : elements) {
+            if (!isPayload(element)) {
+                continue;
+            }
+            String payload;
+            if (element instanceof JSONObject object) {
+                payload = object.toJSONString();
+            } else if (element instanceof JSONArray array) {
+                payload = array.toJSONString();
+            } else {
+                payload = (String) element;
+            }
+            String[] parts = payload.split(MARKER, -1);
+            String[] encodedParts = new String[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                encodedParts[i] = urlEncode(parts[i]);
+            }
+            segments.add(parts);
+            encodedSegments.add(encodedParts);
+        }
+        String[][] literal = segments.toArray(new String[0][]);
+        String[][] encoded = encodedSegments.toArray(new String[0][]);
+        return new PayloadTemplate(literal, encoded, lengths(literal), lengths(encoded));
+    }
+
+    // 选取部分payload（共用已编译的片段）
+    public PayloadTemplate subset(int[] indexes) {
+        String[][] literal = new String[indexes.length][];
+        String[][] encoded = new String[indexes.length][];
+        int[] literalLength = new int[indexes.length];
+        int[] encodedLength = new int[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            literal[i] = segments[indexes[i]];
+            encoded[i] = encodedSegments[indexes[i]];
+            literalLength[i] = literalLengths[indexes[i]];
+            encodedLength[i] = encodedLengths[indexes[i]];
+        }
+        return new PayloadTemplate(literal, encoded, literalLength, encodedLength);
+    }
+
+    public int size() {
+        return segments.length;
+    }
+
+    // 第index个payload（原文，用于请求体和请求头）
+    public String render(int index, String domain) {
+        return splice(segments[index], literalLengths[index], domain);
+    }
+
+    // 第index个payload（URL编码，用于GET/POST参数）
+    public String renderUrlEncoded(int index, String domain) {
+        return splice(encodedSegments[index], encodedLengths[index], isUrlSafe(domain) ? domain : urlEncode(domain));
+    }
+
+    private static String splice(String[] parts, int literalLength, String domain) {
+        if (parts.length == 1) {
+            return parts[0];
+        }
+        StringBuilder sb = new StringBuilder(literalLength + domain.length() * (parts.length - 1));
+        sb.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            sb.append(domain).append(parts[i]);
+        }
+        return sb.toString();
+    }
+
+    private static int[] lengths(String[][] parts) {
+        int[] lengths = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            for (String part : parts[i]) {
+                lengths[i] += part.length();
+            }
+        }
+        return lengths;
+    }
+
+    // 空格编码为%20（符合URL规范）
+    private static String urlEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    // 域名只含字母、数字、点和连字符时URL编码前后相同
+    private static boolean isUrlSafe(String domain) {
+        for (int i = 0; i < domain.length(); i++) {
+            char c = domain.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '.' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -11,16 +11,74 @@
  * GitHub：https://github.com/Jaysen13/JaySenScan
  * 许可证详情：参见项目根目录 LICENSE 文件
  */
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import burp.api.montoya.MontoyaApi;
 
+/**
+ * 扫描任务线程池
+ * 1. 提交完全异步：submit只做入队，不在调用线程（Burp的HTTP处理线程）上限速或执行任务
+ * 2. 限速在工作线程执行任务前进行
+ * 3. 队列满时按溢出策略处理被动扫描任务：丢弃最旧（DROP_OLDEST）/ 暂存积压队列（SPILL）/ 丢弃新任务（DROP_NEW）；
+ *    右键菜单等主动发起的任务不受队列上限限制
+ * 4. 执行模式：platform（平台线程池，并发数=最大线程数）/ virtual（每个任务一个虚拟线程，
+ *    并发数由全局信号量限制，单个目标的在途请求数由HostLimiter限制）
+ * 5. 按目标主机（协议+主机+端口）分队列，各主机轮流取任务执行，单个主机同时执行的任务数有上限，
+ *    大量请求涌向同一目标时不会占满全部执行名额
+ * 6. 按优先级调度：主动 > 被动扫描 > Spring路径爆破，低优先级任务等待超过30秒后优先执行
+ * 7. 每个任务对应一个ScanHandle，可暂停/继续/取消；插件卸载时立即取消全部任务
+ */
 public class PluginTaskExecutor {
-    private final ThreadPoolExecutor executor;
+    public static final String OVERFLOW_DROP_OLDEST = "DROP_OLDEST";
+    public static final String OVERFLOW_SPILL = "SPILL";
+    public static final String OVERFLOW_DROP_NEW = "DROP_NEW";
+    public static final String MODE_PLATFORM = "platform";
+    public static final String MODE_VIRTUAL = "virtual";
+    // 未指定目标主机的任务共用的队列
+    private static final String DEFAULT_HOST = "";
+
+    // 低优先级队列中的任务等待超过该时间后优先执行，避免被高优先级任务长期饿死
+    private static final long AGING_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final Lane[] LANES = Lane.values();
+
+    // 任务优先级（从高到低）：主动（用户发起）/ 被动扫描（流量触发）/ Spring路径爆破
+    public enum Lane { INTERACTIVE, PASSIVE, SPRING_BRUTE }
+
+    private final ExecutorService runner;
+    private final String mode;
     private final MontoyaApi montoyaApi;
     private final TokenBucket rateLimiter;
     private final int maxQueueSize;
+    // 同时执行的任务数上限
+    private final int maxRunning;
+    // 以下状态均由lock保护
+    private final Object lock = new Object();
+    private final Map<String, HostQueue> hostQueues = new LinkedHashMap<>();
+    // 每个优先级中有任务可执行的主机，按轮询顺序排列
+    private final List<ArrayDeque<HostQueue>> rings = new ArrayList<>();
+    private final int[] laneDepth = new int[LANES.length];
+    private int queueSize;
+    private int running;
+    // 队列满时暂存的被动扫描任务，队列有空位时回填
+    private final ArrayDeque<LaneTask> backlog = new ArrayDeque<>();
+    private final SchedulerMetrics metrics = new SchedulerMetrics();
+    // 未结束的扫描任务（排队、执行中、暂停中）
+    private final Map<Long, ScanHandle> handles = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService monitorExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "burp-plugin-scan-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean shutdown;
 
     public PluginTaskExecutor(
             int corePoolSize,
@@ -29,129 +87,535 @@ public class PluginTaskExecutor {
             int queueCapacity,
             double qps,
             MontoyaApi montoyaApi) {
+        this(corePoolSize, maxPoolSize, keepAliveTimeSeconds, queueCapacity, qps,
+                DnslogConfig.getInstance().scanExecutorMode, DnslogConfig.getInstance().scanMaxConcurrency, montoyaApi);
+    }
+
+    public PluginTaskExecutor(
+            int corePoolSize,
+            int maxPoolSize,
+            long keepAliveTimeSeconds,
+            int queueCapacity,
+            double qps,
+            String mode,
+            int virtualConcurrency,
+            MontoyaApi montoyaApi) {
 
         this.montoyaApi = montoyaApi;
         this.maxQueueSize = queueCapacity;
         this.rateLimiter = new TokenBucket(qps);
+        this.mode = MODE_VIRTUAL.equals(mode) ? MODE_VIRTUAL : MODE_PLATFORM;
 
-        // 【修复1：正确实现ThreadFactory，解决线程构造器错误】
-        ThreadFactory threadFactory = new ThreadFactory() {
-            private final AtomicInteger threadNumber = new AtomicInteger(1); // 线程编号生成器
-
-            @Override
-            public Thread newThread(Runnable r) {
-                // 正确构造线程：传入任务Runnable和线程名称
-                Thread t = new Thread(r, "burp-plugin-worker-" + threadNumber.getAndIncrement());
-                t.setDaemon(true); // 设置为守护线程
-                return t;
-            }
-        };
-
-        // 等待策略
-        RejectedExecutionHandler rejectionHandler = new ThreadPoolExecutor.CallerRunsPolicy();
-
-        // 初始化线程池（保持不变）
-        this.executor = new ThreadPoolExecutor(
-                corePoolSize,
-                maxPoolSize,
-                keepAliveTimeSeconds,
-                TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(queueCapacity),
-                threadFactory,
-                rejectionHandler
-        );
+        if (MODE_VIRTUAL.equals(this.mode)) {
+            // 虚拟线程阻塞在sendRequest上几乎不占资源，并发数只由执行名额限制
+            this.maxRunning = Math.max(1, virtualConcurrency);
+            this.runner = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("burp-plugin-vworker-", 1).factory());
+        } else {
+            // 【修复1：正确实现ThreadFactory，解决线程构造器错误】
+            ThreadFactory threadFactory = new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1); // 线程编号生成器
 
+                @Override
+                public Thread newThread(Runnable r) {
+                    // 正确构造线程：传入任务Runnable和线程名称
+                    Thread t = new Thread(r, "burp-plugin-worker-" + threadNumber.getAndIncrement());
+                    t.setDaemon(true); // 设置为守护线程
+                    return t;
+                }
+            };
+            this.maxRunning = Math.max(corePoolSize, maxPoolSize);
+            // 排队由本类控制，线程池只负责执行，核心线程空闲超时后回收
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    maxRunning,
+                    maxRunning,
+                    keepAliveTimeSeconds,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    threadFactory,
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+            pool.allowCoreThreadTimeOut(true);
+            this.runner = pool;
+        }
+
+        for (int i = 0; i < LANES.length; i++) {
+            rings.add(new ArrayDeque<>());
+        }
         startPoolMonitor();
     }
 
-    public void submit(Runnable task) {
-        try {
-            rateLimiter.acquire();
-            executor.submit(() -> {
-                try {
-                    task.run();
-                } catch (Exception e) {
-                    montoyaApi.logging().logToError("任务异常: " + e.getMessage());
-                }
-            });
-        } catch (Exception e) {
-            montoyaApi.logging().logToError("提交任务失败: " + e.getMessage());
+    // 提交被动扫描任务
+    public ScanHandle submit(Runnable task) {
+        return submit(DEFAULT_HOST, task, Lane.PASSIVE, null);
+    }
+
+    public ScanHandle submit(Runnable task, Lane lane) {
+        return submit(DEFAULT_HOST, task, lane, null);
+    }
+
+    public ScanHandle submit(String hostKey, Runnable task, Lane lane) {
+        return submit(hostKey, task, lane, null);
+    }
+
+    /**
+     * 提交任务（只入队，不阻塞调用线程）
+     * @param hostKey 目标主机标识（HostLimiter.keyOf），同一主机的任务共用一个队列和执行上限
+     * @param description 任务说明，显示在扫描任务列表中
+     * @return 任务句柄，可暂停/继续/取消；线程池已关闭时返回null
+     */
+    public ScanHandle submit(String hostKey, Runnable task, Lane lane, String description) {
+        if (shutdown) {
+            montoyaApi.logging().logToError("提交任务失败: 线程池已关闭");
+            return null;
         }
+        String key = hostKey == null ? DEFAULT_HOST : hostKey;
+        ScanHandle handle = new ScanHandle(key, description == null ? lane.name() : description);
+        LaneTask laneTask = new LaneTask(key, task, lane, handle);
+        handles.put(handle.getId(), handle);
+        metrics.onSubmitted();
+        synchronized (lock) {
+            if (lane == Lane.INTERACTIVE || queueSize < maxQueueSize) {
+                enqueue(laneTask);
+            } else {
+                handleOverflow(laneTask);
+            }
+        }
+        dispatch();
+        return handle;
+    }
+
+    // 单个主机同时执行的任务数上限
+    private static int perHostTaskLimit() {
+        return Math.max(1, DnslogConfig.getInstance().scanPerHostTasks);
     }
 
-    // 自定义令牌桶（保持不变）
-    private static class TokenBucket {
-        private final double qps;
-        private final long maxBurstTokens;
-        private double availableTokens;
-        private long lastRefillTime;
+    // 以下方法需持有lock
+    private void enqueue(LaneTask task) {
+        HostQueue host = hostQueues.computeIfAbsent(task.hostKey, HostQueue::new);
+        host.tasks.get(task.lane.ordinal()).offer(task);
+        queueSize++;
+        laneDepth[task.lane.ordinal()]++;
+        scheduleHost(host);
+    }
 
-        public TokenBucket(double qps) {
-            this.qps = qps;
-            this.maxBurstTokens = (long) Math.ceil(qps);
-            this.availableTokens = maxBurstTokens;
-            this.lastRefillTime = System.nanoTime();
+    // 主机在某个优先级有排队任务且未达到执行上限时加入该优先级的轮询（主动任务不受单主机上限限制）
+    private void scheduleHost(HostQueue host) {
+        boolean full = host.running >= perHostTaskLimit();
+        for (int i = 0; i < LANES.length; i++) {
+            if (full && i != Lane.INTERACTIVE.ordinal()) {
+                break;
+            }
+            if (!host.inRing[i] && !host.tasks.get(i).isEmpty()) {
+                host.inRing[i] = true;
+                rings.get(i).offer(host);
+            }
         }
+    }
 
-        public synchronized void acquire() throws InterruptedException {
-            refill();
+    // 主机没有排队和执行中的任务时移除，避免扫描过的主机一直占用内存
+    private void releaseHost(HostQueue host) {
+        if (host.running > 0) {
+            return;
+        }
+        for (int i = 0; i < LANES.length; i++) {
+            if (host.inRing[i] || !host.tasks.get(i).isEmpty()) {
+                return;
+            }
+        }
+        hostQueues.remove(host.key);
+    }
 
-            if (availableTokens < 1) {
-                long waitNanos = (long) ((1 - availableTokens) * 1_000_000_000 / qps);
-                long waitMillis = (waitNanos + 999_999) / 1_000_000;
-                Thread.sleep(waitMillis);
-                refill();
+    // 队列已满时按溢出策略处理被动任务
+    private void handleOverflow(LaneTask task) {
+        String policy = DnslogConfig.getInstance().scanOverflowPolicy;
+        if (OVERFLOW_SPILL.equals(policy)) {
+            if (backlog.size() < Math.max(0, DnslogConfig.getInstance().scanBacklogMax)) {
+                backlog.offer(task);
+                metrics.onSpilled();
+                return;
             }
+        } else if (!OVERFLOW_DROP_NEW.equals(policy)) {
+            // 默认DROP_OLDEST：从最低优先级开始，移除排队最多的主机中最旧的任务，为新任务腾出位置；
+            // 只移除优先级不高于新任务的任务，否则丢弃新任务
+            int highest = Math.max(task.lane.ordinal(), Lane.INTERACTIVE.ordinal() + 1);
+            for (int i = LANES.length - 1; i >= highest; i--) {
+                HostQueue longest = null;
+                for (HostQueue host : hostQueues.values()) {
+                    if (!host.tasks.get(i).isEmpty()
+                            && (longest == null || host.tasks.get(i).size() > longest.tasks.get(i).size())) {
+                        longest = host;
+                    }
+                }
+                if (longest != null) {
+                    discard(longest.tasks.get(i).poll());
+                    queueSize--;
+                    laneDepth[i]--;
+                    metrics.onShed();
+                    enqueue(task);
+                    return;
+                }
+            }
+        }
+        discard(task);
+        metrics.onShed();
+    }
+
+    // 丢弃未执行的任务
+    private void discard(LaneTask task) {
+        handles.remove(task.handle.getId());
+        task.handle.cancel();
+        task.handle.finished();
+    }
 
-            availableTokens -= 1;
+    // 选择下一个执行的优先级：取最高的非空优先级，低优先级的任务等待超过AGING_NANOS时先执行
+    private int pickLane() {
+        int first = -1;
+        // 全局暂停时只执行主动任务（其中的扫描在发送请求前暂停）
+        int lanes = ScanHandle.isGloballyPaused() ? Lane.INTERACTIVE.ordinal() + 1 : LANES.length;
+        for (int i = 0; i < lanes; i++) {
+            if (!rings.get(i).isEmpty()) {
+                first = i;
+                break;
+            }
         }
+        if (first < 0) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        for (int i = first + 1; i < lanes; i++) {
+            HostQueue host = rings.get(i).peek();
+            LaneTask head = host == null ? null : host.tasks.get(i).peek();
+            if (head != null && now - head.submittedAt > AGING_NANOS) {
+                return i;
+            }
+        }
+        return first;
+    }
 
-        private void refill() {
-            long now = System.nanoTime();
-            long elapsedNanos = now - lastRefillTime;
-            if (elapsedNanos <= 0) {
+    // 有空闲执行名额时按优先级取任务，同一优先级内按主机轮流执行，队列有空位时回填积压任务
+    private void dispatch() {
+        while (true) {
+            LaneTask task;
+            synchronized (lock) {
+                while (queueSize < maxQueueSize && !backlog.isEmpty()) {
+                    enqueue(backlog.poll());
+                }
+                if (running >= maxRunning) {
+                    return;
+                }
+                int lane = pickLane();
+                if (lane < 0) {
+                    return;
+                }
+                HostQueue host = rings.get(lane).poll();
+                host.inRing[lane] = false;
+                if (lane != Lane.INTERACTIVE.ordinal() && host.running >= perHostTaskLimit()) {
+                    // 该主机已通过其他优先级达到执行上限，任务结束时重新加入轮询
+                    continue;
+                }
+                task = host.tasks.get(lane).poll();
+                if (task == null) {
+                    releaseHost(host);
+                    continue;
+                }
+                queueSize--;
+                laneDepth[lane]--;
+                if (task.handle.isCancelled()) {
+                    // 排队期间已取消，不占用执行名额
+                    handles.remove(task.handle.getId());
+                    task.handle.finished();
+                    scheduleHost(host);
+                    releaseHost(host);
+                    continue;
+                }
+                LaneTask parked = task;
+                if (task.handle.parkUntilRunnable(() -> requeue(parked))) {
+                    // 单独暂停的任务不占用执行名额和主机许可，继续或取消后重新排队
+                    scheduleHost(host);
+                    releaseHost(host);
+                    continue;
+                }
+                running++;
+                host.running++;
+                task.host = host;
+                // 重新排到轮询末尾，其他主机先执行
+                scheduleHost(host);
+            }
+            try {
+                runner.execute(task);
+            } catch (RejectedExecutionException e) {
+                metrics.onRejected();
+                finish(task);
                 return;
             }
+        }
+    }
 
-            double newTokens = (elapsedNanos / 1_000_000_000.0) * qps;
-            availableTokens = Math.min(availableTokens + newTokens, maxBurstTokens);
-            lastRefillTime = now;
+    // 暂停的任务继续或被取消后重新排队（不受队列上限限制，取消的任务在出队时直接结束）
+    private void requeue(LaneTask task) {
+        synchronized (lock) {
+            enqueue(task);
         }
+        dispatch();
     }
 
-    // 线程池监控（保持不变）
-    private void startPoolMonitor() {
-        ScheduledExecutorService monitorExecutor = Executors.newSingleThreadScheduledExecutor();
-        monitorExecutor.scheduleAtFixedRate(() -> {
-            int activeThreads = executor.getActiveCount();
-            int queueSize = executor.getQueue().size();
-            long completedTasks = executor.getCompletedTaskCount();
-            double queueUsage = (double) queueSize / maxQueueSize * 100;
+    // 任务结束：归还执行名额，主机重新参与轮询
+    private void finish(LaneTask task) {
+        synchronized (lock) {
+            running--;
+            task.host.running--;
+            scheduleHost(task.host);
+            releaseHost(task.host);
+        }
+    }
 
-//            montoyaApi.logging().logToOutput(String.format(
-//                    "线程池监控：活跃线程=%d，排队任务=%d（%.1f%%），已完成任务=%d",
-//                    activeThreads, queueSize, queueUsage, completedTasks
-//            ));
+    // 单个目标主机的任务队列（每个优先级一个）
+    private static class HostQueue {
+        private final String key;
+        private final List<ArrayDeque<LaneTask>> tasks = new ArrayList<>();
+        private final boolean[] inRing = new boolean[LANES.length];
+        private int running;
 
-//            if (queueUsage > 80) {
-//                montoyaApi.logging().logToOutput("警告：队列即将满负荷，请调整参数");
-//            }
-        }, 0, 30, TimeUnit.SECONDS);
+        HostQueue(String key) {
+            this.key = key;
+            for (int i = 0; i < LANES.length; i++) {
+                tasks.add(new ArrayDeque<>());
+            }
+        }
+
+        int queued() {
+            int sum = 0;
+            for (ArrayDeque<LaneTask> queue : tasks) {
+                sum += queue.size();
+            }
+            return sum;
+        }
+    }
+
+    // 带来源标记的任务：在工作线程中限速后执行，结束后释放名额并调度下一个任务
+    private class LaneTask implements Runnable {
+        private final String hostKey;
+        private final Runnable task;
+        private final Lane lane;
+        private final ScanHandle handle;
+        private final long submittedAt = System.nanoTime();
+        private HostQueue host;
+
+        LaneTask(String hostKey, Runnable task, Lane lane, ScanHandle handle) {
+            this.hostKey = hostKey;
+            this.task = task;
+            this.lane = lane;
+            this.handle = handle;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            long runStart = startedAt;
+            boolean success = false;
+            handle.attach(Thread.currentThread());
+            try {
+                long waited = rateLimiter.acquire();
+                runStart = System.nanoTime();
+                metrics.onStarted(startedAt - submittedAt, waited);
+                if (!handle.isCancelled()) {
+                    task.run();
+                }
+                success = true;
+            } catch (InterruptedException | ScanHandle.CancelledException e) {
+                // 任务被取消或线程池关闭
+                success = true;
+            } catch (Exception e) {
+                montoyaApi.logging().logToError("任务异常: " + e.getMessage());
+            } finally {
+                handle.detach();
+                handles.remove(handle.getId());
+                handle.finished();
+                metrics.onFinished(System.nanoTime() - runStart, success);
+                finish(this);
+                dispatch();
+            }
+        }
+    }
+
+    // 未结束的扫描任务，按提交顺序排列
+    public List<ScanHandle> getScans() {
+        List<ScanHandle> list = new ArrayList<>(handles.values());
+        list.sort(Comparator.comparingLong(ScanHandle::getId));
+        return list;
+    }
+
+    // 取消目标主机的全部扫描任务，返回取消的任务数
+    public int cancelHost(String hostKey) {
+        int count = 0;
+        for (ScanHandle handle : handles.values()) {
+            if (handle.getHostKey().equals(hostKey) && !handle.isCancelled()) {
+                handle.cancel();
+                count++;
+            }
+        }
+        dispatch();
+        return count;
+    }
+
+    public void cancelAll() {
+        handles.values().forEach(ScanHandle::cancel);
+        dispatch();
+    }
+
+    public void pauseAll() {
+        ScanHandle.pauseAll();
+    }
+
+    // 继续全部扫描，并开始调度暂停期间排队的任务
+    public void resumeAll() {
+        ScanHandle.resumeAll();
+        dispatch();
+    }
+
+    // 执行模式
+    public String getMode() {
+        return mode;
+    }
+
+    // 丢弃和暂存的任务数
+    public String getOverflowStats() {
+        synchronized (lock) {
+            return String.format("模式=%s 执行中=%d 排队=%d（%s） 积压=%d 已丢弃=%d 累计暂存=%d", mode,
+                    running, queueSize, formatLaneDepth(), backlog.size(), metrics.getShed(), metrics.getSpilled());
+        }
+    }
+
+    // 调度指标（计数器和延迟直方图）
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
 
-        Runtime.getRuntime().addShutdownHook(new Thread(monitorExecutor::shutdownNow));
+    public int getActiveCount() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return queueSize;
+        }
     }
 
+    // 某个优先级的排队任务数
+    public int getLaneDepth(Lane lane) {
+        synchronized (lock) {
+            return laneDepth[lane.ordinal()];
+        }
+    }
+
+    // 需持有lock
+    private String formatLaneDepth() {
+        StringBuilder sb = new StringBuilder();
+        for (Lane lane : LANES) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(lane.name()).append('=').append(laneDepth[lane.ordinal()]);
+        }
+        return sb.toString();
+    }
+
+    // 格式化调度指标，供UI展示
+    public String formatMetrics() {
+        int active;
+        int queued;
+        int spilled;
+        String lanes;
+        synchronized (lock) {
+            active = running;
+            queued = queueSize;
+            spilled = backlog.size();
+            lanes = formatLaneDepth();
+        }
+        return "模式=" + mode + System.lineSeparator() + "各优先级排队: " + lanes + System.lineSeparator()
+                + metrics.format(active, maxRunning, queued, spilled);
+    }
+
+    // 各目标主机的排队任务数、执行中任务数和在途请求数
+    public String formatHostStats() {
+        Map<String, int[]> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            for (HostQueue host : hostQueues.values()) {
+                stats.put(host.key, new int[]{host.queued(), host.running, 0});
+            }
+        }
+        for (Map.Entry<String, Integer> entry : HostLimiter.inFlight().entrySet()) {
+            stats.computeIfAbsent(entry.getKey(), k -> new int[3])[2] = entry.getValue();
+        }
+        if (stats.isEmpty()) {
+            return "当前没有排队或执行中的扫描任务";
+        }
+        List<String> lines = new ArrayList<>();
+        for (String key : new TreeSet<>(stats.keySet())) {
+            int[] values = stats.get(key);
+            lines.add(String.format("%s  排队=%d 执行中=%d 在途请求=%d",
+                    key.isEmpty() ? "(未指定主机)" : key, values[0], values[1], values[2]));
+        }
+        return String.join("\n", lines);
+    }
+
+    // 有新丢弃的任务时提示（其余指标通过getMetrics/formatMetrics查看）
+    private void startPoolMonitor() {
+        AtomicLong reportedDrops = new AtomicLong();
+        monitorExecutor.scheduleAtFixedRate(() -> {
+            long dropped = metrics.getShed();
+            if (dropped > reportedDrops.getAndSet(dropped)) {
+                montoyaApi.logging().logToOutput("扫描队列已满，部分被动扫描任务已丢弃：" + getOverflowStats());
+            }
+        }, 30, 30, TimeUnit.SECONDS);
+    }
+
+    private boolean isIdle() {
+        synchronized (lock) {
+            return queueSize == 0 && running == 0;
+        }
+    }
+
+    // 停止接收新任务并立即取消全部扫描，执行中的任务在下一个请求前结束（最多等待1秒）
     public void shutdown() {
-        if (!executor.isShutdown()) {
-            executor.shutdown();
+        if (!shutdown) {
+            shutdown = true;
+            handles.values().forEach(ScanHandle::cancel);
+            // 积压任务逐个丢弃，任务结束回调照常执行
+            List<LaneTask> dropped;
+            synchronized (lock) {
+                dropped = new ArrayList<>(backlog);
+                backlog.clear();
+            }
+            dropped.forEach(this::discard);
+            // 排队中的已取消任务直接出队
+            dispatch();
+            long deadline = System.currentTimeMillis() + 1_000;
             try {
-                if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
+                while (!isIdle() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
                 }
             } catch (InterruptedException e) {
-                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            // 等待超时后仍在排队的任务同样逐个丢弃
+            dropped = new ArrayList<>();
+            synchronized (lock) {
+                for (HostQueue host : hostQueues.values()) {
+                    host.tasks.forEach(dropped::addAll);
+                }
+                hostQueues.clear();
+                rings.forEach(ArrayDeque::clear);
+                Arrays.fill(laneDepth, 0);
+                queueSize = 0;
             }
-            montoyaApi.logging().logToOutput("线程池已关闭，完成任务：" + executor.getCompletedTaskCount());
+            dropped.forEach(this::discard);
+            runner.shutdownNow();
+            monitorExecutor.shutdownNow();
+            montoyaApi.logging().logToOutput("线程池已关闭，完成任务：" + metrics.getCompleted());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,236 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 按主机学习URL路由模板，扫描去重以模板为键（/api/user/1001 与 /api/user/1002 视为同一接口）
+ * 1. 按格式识别的路径段：数字 {int}、UUID {uuid}、日期 {date}、十六进制哈希 {hash}、长随机串 {token}，
+ *    带扩展名的段只替换主干部分（如 {int}.json）
+ * 2. 高基数路径段：只合并末尾路径段，同一位置作为末尾出现的不同取值超过阈值后合并为 {var}，之后该位置新的末尾取值不再区分；
+ *    中间路径段（如 /api/user/delete 中的 user）始终保留字面量，避免把不同控制器合并成同一接口
+ * 每个主机一棵路径树，按主机加锁
+ */
+public class RouteTemplateLearner {
+    private static final RouteTemplateLearner INSTANCE = new RouteTemplateLearner();
+    // 学习的主机数上限，超过后新主机只按格式识别
+    private static final int MAX_HOSTS = 2000;
+    // 参与学习的路径深度上限
+    private static final int MAX_DEPTH = 32;
+    private static final String VAR = "{var}";
+
+    private static final Pattern INT = Pattern.compile("\\d+");
+    private static final Pattern UUID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Pattern DATE = Pattern.compile("(19|20)\\d{2}([-_.]?)(0[1-9]|1[0-2])\\2(0[1-9]|[12]\\d|3[01])");
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{16,}");
+    private static final Pattern TOKEN = Pattern.compile("[0-9a-z_\\-]{24,}");
+
+    private final Map<String, Node> hosts = new LinkedHashMap<>();
+
+    public static RouteTemplateLearner getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 将标准化URL（协议://主机/路径）转换为路由模板
+     * @param learn 是否用该路径更新学习结果（评估时先学习全部路径，再以不学习的方式取最终模板）
+     */
+    public String template(String standardUrl, boolean learn) {
+        int hostEnd = standardUrl.indexOf('/', standardUrl.indexOf("://") + 3);
+        if (hostEnd < 0) {
+            return standardUrl;
+        }
+        String hostKey = standardUrl.substring(0, hostEnd);
+        String[] segments = standardUrl.substring(hostEnd + 1).split("/");
+        int threshold = Math.max(2, DnslogConfig.getInstance().scanRouteVarThreshold);
+        Node root;
+        synchronized (hosts) {
+            root = hosts.get(hostKey);
+            if (root == null && learn && hosts.size() < MAX_HOSTS) {
+                root = new Node();
+                hosts.put(hostKey, root);
+            }
+        }
+        StringBuilder sb = new StringBuilder(hostKey);
+        if (root == null) {
+            for (String segment : segments) {
+                sb.append('/').append(classify(segment));
+            }
+            return sb.toString();
+        }
+        synchronized (root) {
+            Node node = root;
+            for (int i = 0; i < segments.length; i++) {
+                String key = classify(segments[i]);
+                boolean last = i == segments.length - 1;
+                if (node != null && i < MAX_DEPTH) {
+                    // 已合并的位置只把新的末尾取值归入 {var}，已学习的中间路径段保持字面量
+                    if (node.variable && last && isLiteral(key) && !node.children.containsKey(key)) {
+                        key = VAR;
+                    }
+                    Node child = node.children.get(key);
+                    if (child == null && learn) {
+                        child = new Node();
+                        node.children.put(key, child);
+                        if (last && isLiteral(key) && node.leafLiteralCount() > threshold) {
+                            node.collapse();
+                            key = VAR;
+                            child = node.children.get(VAR);
+                        }
+                    }
+                    node = child;
+                }
+                sb.append('/').append(key);
+            }
+            if (node != null && learn) {
+                node.hits++;
+            }
+        }
+        return sb.toString();
+    }
+
+    // 按格式识别路径段，无法识别时原样返回
+    static String classify(String segment) {
+        int dot = segment.lastIndexOf('.');
+        String stem = dot > 0 ? segment.substring(0, dot) : segment;
+        String suffix = dot > 0 ? segment.substring(dot) : "";
+        String type;
+        if (DATE.matcher(stem).matches()) {
+            type = "{date}";
+        } else if (INT.matcher(stem).matches()) {
+            type = "{int}";
+        } else if (UUID.matcher(stem).matches()) {
+            type = "{uuid}";
+        } else if (HASH.matcher(stem).matches() && hasDigit(stem)) {
+            type = "{hash}";
+        } else if (TOKEN.matcher(stem).matches() && hasDigit(stem)) {
+            type = "{token}";
+        } else {
+            return segment;
+        }
+        return type + suffix;
+    }
+
+    private static boolean hasDigit(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isDigit(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLiteral(String key) {
+        return !key.startsWith("{");
+    }
+
+    // 已学习的模板：{主机, 模板路径, 请求次数}，按请求次数降序
+    public List<Object[]> snapshot() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Map.Entry<String, Node>> roots;
+        synchronized (hosts) {
+            roots = new ArrayList<>(hosts.entrySet());
+        }
+        for (Map.Entry<String, Node> entry : roots) {
+            synchronized (entry.getValue()) {
+                entry.getValue().collect(entry.getKey(), "", rows);
+            }
+        }
+        rows.sort((a, b) -> Long.compare((long) b[2], (long) a[2]));
+        return rows;
+    }
+
+    public void clear() {
+        synchronized (hosts) {
+            hosts.clear();
+        }
+    }
+
+    /**
+     * 用一组已记录的URL（如代理历史）评估模板去重的效果
+     * 在独立的学习器中按原顺序逐个处理（与实际运行一致，学习完成前的请求仍单独计数），
+     * 并给出学习完成后的模板数
+     */
+    public static String benchmark(List<String> standardUrls) {
+        RouteTemplateLearner learner = new RouteTemplateLearner();
+        Set<String> plain = new HashSet<>();
+        Set<String> online = new HashSet<>();
+        for (String url : standardUrls) {
+            plain.add(url);
+            online.add(learner.template(url, true));
+        }
+        Set<String> learned = new HashSet<>();
+        for (String url : plain) {
+            learned.add(learner.template(url, false));
+        }
+        return String.format("请求数：%d%n原去重键（标准化URL）：%d%n按模板去重（边学习边去重）：%d，减少扫描任务 %.1f%%%n学习完成后的模板数：%d，减少扫描任务 %.1f%%%n",
+                standardUrls.size(), plain.size(), online.size(), saving(plain.size(), online.size()),
+                learned.size(), saving(plain.size(), learned.size()));
+    }
+
+    private static double saving(int before, int after) {
+        return before == 0 ? 0 : 100.0 * (before - after) / before;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean variable;
+        private long hits;
+
+        // 没有子路径的字面量子节点数
+        int leafLiteralCount() {
+            int count = 0;
+            for (Map.Entry<String, Node> entry : children.entrySet()) {
+                if (isLiteral(entry.getKey()) && entry.getValue().children.isEmpty()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // 将没有子路径的字面量子节点合并为 {var}，带子路径的字面量保持不变
+        void collapse() {
+            variable = true;
+            Node merged = children.get(VAR);
+            if (merged == null) {
+                merged = new Node();
+            }
+            Iterator<Map.Entry<String, Node>> iterator = children.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Node> entry = iterator.next();
+                if (isLiteral(entry.getKey()) && entry.getValue().children.isEmpty()) {
+                    merged.hits += entry.getValue().hits;
+                    iterator.remove();
+                }
+            }
+            children.put(VAR, merged);
+        }
+
+        void collect(String hostKey, String path, List<Object[]> rows) {
+            if (hits > 0) {
+                rows.add(new Object[]{hostKey, path, hits});
+            }
+            for (Map.Entry<String, Node> entry : children.entrySet()) {
+                entry.getValue().collect(hostKey, path + "/" + entry.getKey(), rows);
+            }
+        }
+    }
+}
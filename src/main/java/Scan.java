@@ -12,21 +12,15 @@
  * 许可证详情：参见项目根目录 LICENSE 文件
  */
 import burp.api.montoya.MontoyaApi;
-import burp.api.montoya.http.handler.HttpRequestToBeSent;
 import burp.api.montoya.http.message.HttpHeader;
 import burp.api.montoya.http.message.HttpRequestResponse;
-import burp.api.montoya.http.message.params.HttpParameter;
-import burp.api.montoya.http.message.params.HttpParameterType;
 import burp.api.montoya.http.message.requests.HttpRequest;
-import com.alibaba.fastjson2.JSONArray;
-import com.alibaba.fastjson2.JSONObject;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
 
 public class Scan {
     private final MontoyaApi montoyaApi;
@@ -51,47 +45,31 @@ public class Scan {
      * @param request 原始HTTP请求
      * @param rawDatas 需要替换的json数据列表
      */
-    public void fastJsonScan(HttpRequestToBeSent request, List<JsonData> rawDatas) {
+    public void fastJsonScan(HttpRequest request, List<JsonData> rawDatas) {
         String topDomain1 = "fjson";
         String topDomain2 = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
             try {
                 String timestamp = String.valueOf(System.currentTimeMillis());
                 Config config = new Config(timestamp,topDomain1+topDomain2,DnslogConfig.getInstance().collaboratorDomain);
-                // 解析Config类中的fastjsonPayload为JSONArray
-                JSONArray payloads = JSONArray.parseArray(config.fastjsonPayload);
-                // 遍历所有待替换的JSON数据（来自GET参数、POST参数、请求体）
-                for (JsonData rawData : rawDatas){
-                    // 循环遍历Payload集合，逐个发送
-                    for (int i = 0; i < payloads.size(); i++) {
-
-                        Object payloadObj = payloads.get(i);
-                        String payloadStr;
-
-                        // 判断 Payload 类型：JSONObject 或 JSONArray
-                        if (payloadObj instanceof JSONObject) {
-                            payloadStr = ((JSONObject) payloadObj).toJSONString();
-                        } else if (payloadObj instanceof JSONArray) {
-                            payloadStr = ((JSONArray) payloadObj).toJSONString(); // 数组类型直接序列化
-                        } else {
-                            this.montoyaApi.logging().logToOutput("Payload[" + (i + 1) + "] 不是 JSON 对象/数组，跳过");
-                            continue;
-                        }
-//                        this.montoyaApi.logging().logToOutput("[DEBUG]payload: " + payloadStr);
-                        // 根据JSON数据来源位置，替换对应的部分
-                        HttpRequest modifiedRequest = replaceJsonInRequest(request, rawData, payloadStr);
-                        // 添加标记头
-                        modifiedRequest = modifiedRequest.withAddedHeader("JaySen-FastJson-Scan","true");
-                        // 发送修改后的请求
-                        HttpRequestResponse attackReqResp = this.montoyaApi.http().sendRequest(modifiedRequest);
-                        if (logEnable) {
-                            // 加入已发送请求的存储日志中
-                            saveLogFile.addToBatch(attackReqResp);
-                        }
-                        // 不立即检查DNSLOG，而是添加到批量缓存
-                        CheckDnslogResult.getInstance().addToBatch(topDomain2, attackReqResp);
-
-                    }
+                // 适用于该请求的FastJSON Payload（已预编译），只需拼接本次扫描的域名
+                PayloadTemplate payloads = PayloadPacks.select(PayloadPacks.FAMILY_FASTJSON, request);
+                String strategy = DnslogConfig.getInstance().scanInsertionStrategy;
+                int requestBudget = DnslogConfig.getInstance().scanFastjsonRequestBudget;
+                // 注入点：JSON参数，以及JSON请求体中的包裹位置和嵌套对象
+                List<InsertionPoint> points = new ArrayList<>();
+                for (JsonData rawData : rawDatas) {
+                    points.addAll(InsertionPoint.forJson(rawData));
                 }
+                points = limitPoints(points, payloads.size(), strategy, requestBudget);
+                List<Attack> attacks = new ArrayList<>();
+                planAttacks(attacks, new MutationBuilder(request), points, 0, payloads, strategy);
+                sendAttacks(attacks, config, topDomain2, strategy, Scan::fastJsonMarkers, requestBudget);
+            }
+            catch (ScanHandle.CancelledException e) {
+                this.montoyaApi.logging().logToOutput("FastJSON扫描已取消：" + request.url());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
             catch (Exception e) {
                 this.montoyaApi.logging().logToError("FastJSON扫描过程出错：" + e.getMessage());
@@ -112,7 +90,12 @@ public class Scan {
             String timestamp = String.valueOf(System.currentTimeMillis());
             // 初始化配置
             Config config = new Config(timestamp,topDomain1+topDomain2,DnslogConfig.getInstance().collaboratorDomain);
-            JSONArray payloads = JSONArray.parseArray(config.fastjsonPayload);
+            String strategy = DnslogConfig.getInstance().scanInsertionStrategy;
+            int requestBudget = DnslogConfig.getInstance().scanFastjsonRequestBudget;
+            List<Attack> attacks = new ArrayList<>();
+            // 所有请求共用一个扫描标识，注入点序号依次递增
+            int pointCount = 0;
+            int scannedRequests = 0;
 
             // 遍历每个请求，通过索引关联对应的JSON数据列表（一一对应）
             for (int i = 0; i < requests.size(); i++) {
@@ -125,194 +108,253 @@ public class Scan {
                     continue;
                 }
 
-                // 遍历当前请求的所有JSON数据
+                PayloadTemplate payloads = PayloadPacks.select(PayloadPacks.FAMILY_FASTJSON, originalRequest);
+                List<InsertionPoint> points = new ArrayList<>();
                 for (JsonData rawData : rawDatas) {
-                    // 遍历所有payload，替换并发送
-                    for (int p = 0; p < payloads.size(); p++) {
-                        JSONObject payload = payloads.getJSONObject(p);
-                        String payloadStr = payload.toJSONString();
-
-                        // 替换JSON数据
-                        HttpRequest modifiedRequest = replaceJsonInRequest(originalRequest, rawData, payloadStr);
-                        // 基于替换后的请求添加标记头
-                        modifiedRequest = modifiedRequest.withAddedHeader("JaySen-FastJson-Scan", "true");
-
-                        // 发送请求
-                        HttpRequestResponse attackReqResp = this.montoyaApi.http().sendRequest(modifiedRequest);
-//                        Extension.attackReqResps.add(attackReqResp);
-                        if (logEnable) {
-                            saveLogFile.addToBatch(attackReqResp);
-                        }
-                        // 不立即检查DNSLOG，而是添加到批量缓存
-                        CheckDnslogResult.getInstance().addToBatch(topDomain2,attackReqResp);
-                    }
+                    points.addAll(InsertionPoint.forJson(rawData));
                 }
+                points = limitPoints(points, payloads.size(), strategy, requestBudget);
+                planAttacks(attacks, new MutationBuilder(originalRequest), points, pointCount, payloads, strategy);
+                pointCount += points.size();
+                scannedRequests++;
             }
 
+            // 发送请求（启用批量加密时先整组加密），请求数上限按端点数累计
+            sendAttacks(attacks, config, topDomain2, strategy, Scan::fastJsonMarkers,
+                    requestBudget <= 0 ? 0 : requestBudget * scannedRequests);
+
 //            montoyaApi.logging().logToOutput("所有请求的FastJSON扫描已完成");
+        } catch (ScanHandle.CancelledException e) {
+            this.montoyaApi.logging().logToOutput("FastJSON扫描已取消");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             this.montoyaApi.logging().logToError("FastJSON扫描出错：" + e.getMessage());
         }
     }
 
+    private static List<HttpHeader> fastJsonMarkers(int payloadIndex) {
+        return List.of(HttpHeader.httpHeader("JaySen-FastJson-Scan", "true"));
+    }
+
+    private static List<HttpHeader> log4jMarkers(int payloadIndex) {
+        return List.of(HttpHeader.httpHeader("JaySen-Log4j-Scan", "true"),
+                HttpHeader.httpHeader("JaySen-Log4j-Payload-Index", String.valueOf(payloadIndex + 1)));
+    }
 
 
 
+
+
+    // 发送攻击请求，同一目标主机的在途请求数和请求速率受HostLimiter限制（开启自适应限速时随响应情况调整）
+    private HttpRequestResponse sendAttack(HttpRequest attackRequest) throws InterruptedException {
+        // 任务被取消时结束扫描，被暂停时在此等待
+        ScanHandle.checkpoint();
+        HostLimiter.HostPermit permits = HostLimiter.acquire(attackRequest.httpService());
+        long start = System.nanoTime();
+        HttpRequestResponse result = null;
+        try {
+            result = montoyaApi.http().sendRequest(attackRequest);
+            return result;
+        } finally {
+            // 状态码、延迟和异常用于自适应调整该主机的速率
+            permits.release(result, System.nanoTime() - start);
+        }
+    }
+
     /**
-     * 根据JSON数据的位置，替换请求中的对应部分为payload
+     * 启用批量加密时，通过一次批量接口调用预先加密整组攻击请求
+     * 加密成功的请求带有JaysenReqToBeSent标记，HTTP监听器不会再逐个调用加密接口
      */
-    private HttpRequest replaceJsonInRequest(HttpRequest rawRequest, JsonData rawData, String payloadStr) {
-        String encodedPayload = payloadStr;
-        if (!cryptEnable){
-        // 对payload进行URL编码（适用于GET/POST参数，请求体JSON无需编码）
-        encodedPayload = URLEncoder.encode(payloadStr, StandardCharsets.UTF_8)
-                .replace("+", "%20"); // 确保空格编码为%20（符合URL规范）
+    private List<HttpRequest> preEncrypt(List<HttpRequest> attackRequests) {
+        DnslogConfig config = DnslogConfig.getInstance();
+        if (!config.cryptoEnabled || !config.cryptoBatchEnabled || attackRequests.isEmpty()) {
+            return attackRequests;
+        }
+        // 与HTTP监听器保持一致：只加密指定的目标，解密阶段已跳过的请求不加密
+        String targetDomain = config.targetDomain;
+        CryptoBypassRules rules = CryptoBypassRules.current();
+        List<Integer> targetIndexes = new ArrayList<>();
+        List<HttpRequest> targetRequests = new ArrayList<>();
+        for (int i = 0; i < attackRequests.size(); i++) {
+            String host = attackRequests.get(i).headerValue("Host");
+            if ((targetDomain.isEmpty() || "*".equals(targetDomain) || (host != null && host.contains(targetDomain)))
+                    && rules.encryptBypassReason(attackRequests.get(i)) == null) {
+                targetIndexes.add(i);
+                targetRequests.add(attackRequests.get(i));
+            }
+        }
+        if (targetRequests.isEmpty()) {
+            return attackRequests;
         }
-        switch (rawData.getSourceType()) {
-            case REQUEST_BODY:
-                // 替换请求体（保留其他请求头、参数等，仅修改body）
-                return rawRequest.withBody(payloadStr);
-
-            case GET_PARAM:
-                // 修正：GET查询参数的正确类型是 QUERY
-                HttpParameter getParam = HttpParameter.parameter(
-                        rawData.getParamName(),  // 参数名
-                        encodedPayload,         // 编码后的payload
-                        HttpParameterType.URL  // 正确类型：QUERY（对应URL中的?后的参数）
-                );
-                // 仅更新当前参数，其他GET参数保持不变
-                return rawRequest.withUpdatedParameters(getParam);
-
-            case POST_PARAM:
-                // POST表单参数类型为 BODY（正确）
-                HttpParameter postParam = HttpParameter.parameter(
-                        rawData.getParamName(),  // 参数名
-                        encodedPayload,         // 编码后的payload
-                        HttpParameterType.BODY   // 正确类型：BODY（对应application/x-www-form-urlencoded的表单参数）
-                );
-                // 仅更新当前参数，其他POST参数保持不变
-                return rawRequest.withUpdatedParameters(postParam);
-
-            default:
-                return rawRequest;
+        List<HttpRequest> encrypted = MyProxyRequestHandler.sendRequests(targetRequests, "RequestToBeSent", "JaysenReqToBeSent", montoyaApi);
+        List<HttpRequest> result = new ArrayList<>(attackRequests);
+        for (int i = 0; i < targetIndexes.size(); i++) {
+            result.set(targetIndexes.get(i), encrypted.get(i));
         }
+        return result;
     }
 
+    // 一个攻击请求：将第payload个payload注入points中[from, to)范围内的注入点，注入点的扫描序号从firstIndex开始
+    private record Attack(MutationBuilder mutations, List<InsertionPoint> points, int firstIndex,
+                          PayloadTemplate payloads, int payload, int from, int to) {
+        Attack range(int newFrom, int newTo) {
+            return new Attack(mutations, points, firstIndex, payloads, payload, newFrom, newTo);
+        }
+    }
 
-    /**
-     * Log4j 全版本漏洞探测
-     * */
-    public void log4jScan(HttpRequestToBeSent request) {
-//        montoyaApi.logging().logToOutput("开始log4j扫描  目标数据包如下:\n"+request);
-        String topDomain1 = "log4j";
-        String topDomain2 = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
-        try {
-            String timestamp = String.valueOf(System.currentTimeMillis());
-            // 初始化配置
-            Config config = new Config(timestamp,topDomain1+topDomain2,DnslogConfig.getInstance().collaboratorDomain);
+    // 单次扫描的请求数上限（BISECT拆分重试也计入），0表示不限制
+    private static final class RequestBudget {
+        private int remaining;
 
-            if (config.log4jPayload == null || config.log4jPayload.isEmpty()) {
-                this.montoyaApi.logging().logToError("Log4j探测失败：Config未配置log4jPayload");
-                return;
+        RequestBudget(int limit) {
+            this.remaining = limit <= 0 ? Integer.MAX_VALUE : limit;
+        }
+
+        boolean tryTake(int count) {
+            if (remaining < count) {
+                return false;
             }
+            remaining -= count;
+            return true;
+        }
+    }
 
-            // 关键：log4jPayload是字符串数组，直接解析为JSONArray（无需JSONObject）
-            JSONArray payloads = JSONArray.parseArray(config.log4jPayload);
+    // PER_POINT策略下按请求数上限减少注入点（保留优先级高的），保证每个payload都覆盖保留的注入点
+    private static List<InsertionPoint> limitPoints(List<InsertionPoint> points, int payloadCount, String strategy, int requestBudget) {
+        if (requestBudget <= 0 || payloadCount == 0 || !InsertionPoint.STRATEGY_PER_POINT.equals(strategy)) {
+            return points;
+        }
+        int maxPoints = Math.max(1, requestBudget / payloadCount);
+        return points.size() <= maxPoints ? points : points.subList(0, maxPoints);
+    }
 
-            // 遍历Payload：直接用getString(i)获取字符串，无需getJSONObject
-            for (int i = 0; i < payloads.size(); i++) {
-                // 修复：getString(i) 提取字符串类型的Payload
-                String payloadStr = payloads.getString(i);
-                if (payloadStr == null || payloadStr.trim().isEmpty()) {
-                    this.montoyaApi.logging().logToOutput("跳过空Payload[" + (i + 1) + "]");
-                    continue;
-                }
-                // 参数值URL编码（请求头无需编码）
-                String encodedPayload = payloadStr;
-                if (!cryptEnable) {
-                    encodedPayload = URLEncoder.encode(payloadStr, StandardCharsets.UTF_8)
-                            .replace("+", "%20");
-                }
-                // 替换所有请求头和参数（原有逻辑不变）
-                HttpRequest modifiedRequest = replaceAllHeaders(request, payloadStr);
-                modifiedRequest = replaceAllParameters(modifiedRequest, encodedPayload);
-                modifiedRequest = modifiedRequest.withAddedHeader("JaySen-Log4j-Scan", "true")
-                        .withAddedHeader("JaySen-Log4j-Payload-Index", String.valueOf(i + 1));
-//                montoyaApi.logging().logToOutput("log4jScan:\n"+modifiedRequest);
-                // 发送请求
-                HttpRequestResponse attackReqResp = this.montoyaApi.http().sendRequest(modifiedRequest);
-//                montoyaApi.logging().logToOutput(attackReqResp.request()+"\n");
-//                montoyaApi.logging().logToOutput(attackReqResp.response()+"\n");
-                if (logEnable) {
-                    // 保存日志
-                    saveLogFile.addToBatch(attackReqResp);
+    // 按注入点策略规划攻击请求：PER_POINT每个注入点一个请求，其他策略全部注入点一个请求
+    private static void planAttacks(List<Attack> attacks, MutationBuilder mutations, List<InsertionPoint> points,
+                                    int firstIndex, PayloadTemplate payloads, String strategy) {
+        if (points.isEmpty()) {
+            return;
+        }
+        for (int p = 0; p < payloads.size(); p++) {
+            if (InsertionPoint.STRATEGY_PER_POINT.equals(strategy)) {
+                for (int j = 0; j < points.size(); j++) {
+                    attacks.add(new Attack(mutations, points, firstIndex, payloads, p, j, j + 1));
                 }
-                // 暂不校验dnslog  添加缓存
-                CheckDnslogResult.getInstance().addToBatch(topDomain2,attackReqResp);
-
+            } else {
+                attacks.add(new Attack(mutations, points, firstIndex, payloads, p, 0, points.size()));
             }
+        }
+    }
 
-//            montoyaApi.logging().logToOutput("Log4j全方位探测所有Payload已发送完成");
-        } catch (Exception e) {
-            this.montoyaApi.logging().logToError("Log4j全方位扫描出错：" + e.getMessage());
+    // 生成攻击请求：每个注入点的payload使用该注入点自己的DNSLOG子域名
+    private HttpRequest render(Attack attack, Config config, IntFunction<List<HttpHeader>> markers) {
+        List<InsertionPoint> points = attack.points().subList(attack.from(), attack.to());
+        List<String> values = new ArrayList<>(points.size());
+        for (int j = 0; j < points.size(); j++) {
+            String domain = config.pointDomain(attack.firstIndex() + attack.from() + j);
+            values.add(points.get(j).urlEncoded(cryptEnable)
+                    ? attack.payloads().renderUrlEncoded(attack.payload(), domain)
+                    : attack.payloads().render(attack.payload(), domain));
         }
+        return attack.mutations().build(points, values, markers.apply(attack.payload()));
     }
 
     /**
-     * 替换所有非关键请求头的值为Payload（保留必要头，防止请求失效）
+     * 发送攻击请求并按注入点登记DNSLOG关键词
+     * BISECT策略下被拦截（无响应或403/406/501）的请求拆成两半分别重试，
+     * 被拦截的注入点只需对数次请求即可隔离，其余注入点的检测不受影响
      */
-    private HttpRequest replaceAllHeaders(HttpRequestToBeSent request, String payloadStr) {
-        HttpRequest modifiedRequest = request;
-        // 定义需要保留的关键头（避免替换后请求无法正常发送）
-        List<String> reservedHeaders = new ArrayList<>();
-        reservedHeaders.add("Host");          // 必须保留，否则目标地址失效
-        reservedHeaders.add("Content-Length");// 必须保留，否则请求体长度不匹配
-        reservedHeaders.add("JaysenReqReceived");
-        reservedHeaders.add("JaysenReqToBeSent");
-        reservedHeaders.add("Content-Type");  // 保留，确保POST表单格式正确
-        reservedHeaders.add("Connection");    // 保留，维持连接状态
-        reservedHeaders.add("Accept");
-        reservedHeaders.add("Accept-Encoding");
-        reservedHeaders.add("Accept-Language");
-        reservedHeaders.add("Transfer-Encoding");
-        reservedHeaders.add("Content-Encoding");
-        reservedHeaders.add("Content-Language");
-        // 遍历所有请求头，替换非关键头的值
-        for (HttpHeader header : request.headers()) {
-            String headerName = header.name();
-            // 跳过关键头，替换其他头的值
-            if (!reservedHeaders.contains(headerName)) {
-                modifiedRequest = modifiedRequest.withUpdatedHeader(headerName, payloadStr);
+    private void sendAttacks(List<Attack> attacks, Config config, String scanId, String strategy,
+                             IntFunction<List<HttpHeader>> markers, int requestBudget) throws InterruptedException {
+        RequestBudget budget = new RequestBudget(requestBudget);
+        List<HttpRequest> attackRequests = new ArrayList<>(attacks.size());
+        for (Attack attack : attacks) {
+            if (!budget.tryTake(1)) {
+                montoyaApi.logging().logToOutput("已达到请求数上限" + requestBudget + "，跳过剩余" + (attacks.size() - attackRequests.size()) + "个请求");
+                break;
+            }
+            attackRequests.add(render(attack, config, markers));
+        }
+        boolean bisect = InsertionPoint.STRATEGY_BISECT.equals(strategy);
+        // 启用批量加密时先整组加密
+        List<HttpRequest> encrypted = preEncrypt(attackRequests);
+        for (int k = 0; k < encrypted.size(); k++) {
+            sendAndRecord(attacks.get(k), encrypted.get(k), config, scanId, bisect, markers, budget);
+        }
+    }
+
+    private void sendAndRecord(Attack attack, HttpRequest attackRequest, Config config, String scanId,
+                               boolean bisect, IntFunction<List<HttpHeader>> markers, RequestBudget budget) throws InterruptedException {
+        HttpRequestResponse attackReqResp = sendAttack(attackRequest);
+        if (bisect && isBlocked(attackReqResp)) {
+            if (attack.to() - attack.from() > 1 && budget.tryTake(2)) {
+                int mid = (attack.from() + attack.to()) >>> 1;
+                for (Attack half : List.of(attack.range(attack.from(), mid), attack.range(mid, attack.to()))) {
+                    HttpRequest halfRequest = preEncrypt(List.of(render(half, config, markers))).get(0);
+                    sendAndRecord(half, halfRequest, config, scanId, true, markers, budget);
+                }
+                return;
+            }
+            if (attack.to() - attack.from() == 1) {
+                montoyaApi.logging().logToOutput("注入点被拦截：" + attack.points().get(attack.from()) + " " + attackRequest.url());
             }
         }
-        return modifiedRequest;
+        if (logEnable) {
+            // 加入已发送请求的存储日志中
+            saveLogFile.addToBatch(attackReqResp);
+        }
+        // 不立即检查DNSLOG，每个注入点的标签作为关键词添加到批量缓存
+        Map<String, String> pointKeywords = new LinkedHashMap<>();
+        for (int j = attack.from(); j < attack.to(); j++) {
+            pointKeywords.put(InsertionPoint.label(scanId, attack.firstIndex() + j), attack.points().get(j).toString());
+        }
+        CheckDnslogResult.getInstance().addToBatch(pointKeywords, attackReqResp);
+    }
+
+    // 请求是否被拦截（WAF拦截时常见无响应或403/406/501）
+    private static boolean isBlocked(HttpRequestResponse attackReqResp) {
+        if (attackReqResp.response() == null) {
+            return true;
+        }
+        short status = attackReqResp.response().statusCode();
+        return status == 403 || status == 406 || status == 501;
     }
 
     /**
-     * 替换所有参数的值为编码后的Payload（GET/POST表单参数）
-     */
-    private HttpRequest replaceAllParameters(HttpRequest request, String encodedPayload) {
-        HttpRequest modifiedRequest = request;
-        // 遍历所有参数（包括GET的QUERY参数、POST的BODY参数）
-        for (HttpParameter param : request.parameters()) {
-            HttpParameterType paramType = param.type();
-            // 按参数类型创建新参数（同名，值为编码后的Payload）
-            HttpParameter newParam = switch (paramType) {
-                case URL -> HttpParameter.parameter(param.name(), encodedPayload, HttpParameterType.URL);
-                case BODY -> HttpParameter.parameter(param.name(), encodedPayload, HttpParameterType.BODY);
-                case JSON -> HttpParameter.parameter(param.name(), encodedPayload, HttpParameterType.JSON);
-                default -> param; // 其他参数类型（如COOKIE）暂不替换，可根据需求扩展
-            };
-            // 更新参数值（API自动覆盖原有参数）
-            modifiedRequest = modifiedRequest.withUpdatedParameters(newParam);
+     * Log4j 全版本漏洞探测
+     * */
+    public void log4jScan(HttpRequest request) {
+//        montoyaApi.logging().logToOutput("开始log4j扫描  目标数据包如下:\n"+request);
+        String topDomain1 = "log4j";
+        String topDomain2 = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        try {
+            String timestamp = String.valueOf(System.currentTimeMillis());
+            // 初始化配置
+            Config config = new Config(timestamp,topDomain1+topDomain2,DnslogConfig.getInstance().collaboratorDomain);
+            // 适用于该请求的Log4j Payload（已预编译），只需拼接本次扫描的域名
+            PayloadTemplate payloads = PayloadPacks.select(PayloadPacks.FAMILY_LOG4J, request);
+            DnslogConfig dnslogConfig = DnslogConfig.getInstance();
+            // 注入点（非关键请求头、参数等）只计算一次
+            List<InsertionPoint> points = InsertionPoint.extract(request, InsertionPoint.parseTypes(dnslogConfig.scanInsertionTypes));
+            List<Attack> attacks = new ArrayList<>();
+            planAttacks(attacks, new MutationBuilder(request), points, 0, payloads, dnslogConfig.scanInsertionStrategy);
+            // 发送请求（启用批量加密时先整组加密）
+            sendAttacks(attacks, config, topDomain2, dnslogConfig.scanInsertionStrategy, Scan::log4jMarkers, 0);
+
+//            montoyaApi.logging().logToOutput("Log4j全方位探测所有Payload已发送完成");
+        } catch (ScanHandle.CancelledException e) {
+            this.montoyaApi.logging().logToOutput("Log4j扫描已取消：" + request.url());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            this.montoyaApi.logging().logToError("Log4j全方位扫描出错：" + e.getMessage());
         }
-        return modifiedRequest;
     }
 
     /**
      * spring未授权访问扫描（优化版）
      */
-    public void springScan(HttpRequestToBeSent request) {
+    public void springScan(HttpRequest request) {
         String originalUrl = request.url();
         String originalPath = request.withRemovedParameters(request.parameters()).path();
         // 1. 先判断是否为潜在API URL，不是则直接返回
@@ -343,7 +385,7 @@ public class Scan {
                             .withAddedHeader("JaySen-spring-Scan", "true")
                             .withPath(scanPath);
 
-                    HttpRequestResponse attackReqResp = montoyaApi.http().sendRequest(scannedRequest);
+                    HttpRequestResponse attackReqResp = sendAttack(scannedRequest);
                     montoyaApi.logging().logToOutput("Spring扫描中: " + attackReqResp.request().url());
 
                     if (attackReqResp.response() == null) {
@@ -353,10 +395,17 @@ public class Scan {
                     // 命中条件：状态码200且响应体包含特征
                     int respCode = attackReqResp.response().statusCode();
                     if (respCode == 200 ||respCode == 302 || respCode == 301) {
-                        executor.submit(() -> mySuiteTab.addRequestInfo(attackReqResp, "Spring未授权访问"));
+                        executor.submit(() -> mySuiteTab.addRequestInfo(attackReqResp, "Spring未授权访问"), PluginTaskExecutor.Lane.INTERACTIVE);
                         montoyaApi.logging().logToOutput("发现Spring未授权访问: " + attackReqResp.request().url());
 
                     }
+                } catch (ScanHandle.CancelledException e) {
+                    montoyaApi.logging().logToOutput("Spring扫描已取消: " + originalUrl);
+                    return;
+                } catch (InterruptedException e) {
+                    // 等待许可时被中断（取消或插件卸载），恢复中断标记后结束扫描
+                    Thread.currentThread().interrupt();
+                    return;
                 } catch (Exception e) {
                     montoyaApi.logging().logToError("Spring扫描出错（路径：" + scanPath + "）: " + e.getMessage());
                 }
@@ -0,0 +1,231 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 扫描任务句柄：支持暂停、继续和取消
+ * 取消和暂停是协作式的：扫描在发送每个请求前调用checkpoint()，被取消时抛出CancelledException结束扫描，
+ * 被暂停（单个任务暂停或全局暂停）时阻塞等待继续
+ */
+public class ScanHandle {
+    public enum State { QUEUED, RUNNING, PAUSED, CANCELLED, DONE }
+
+    private static final AtomicLong IDS = new AtomicLong();
+    // 当前线程正在执行的扫描任务
+    private static final ThreadLocal<ScanHandle> CURRENT = new ThreadLocal<>();
+    // 暂停等待使用ReentrantLock，虚拟线程等待时不占用载体线程
+    private static final ReentrantLock PAUSE_LOCK = new ReentrantLock();
+    private static final Condition RESUMED = PAUSE_LOCK.newCondition();
+    private static volatile boolean globallyPaused;
+
+    private final long id = IDS.incrementAndGet();
+    private final String hostKey;
+    private final String description;
+    private final long createdAt = System.currentTimeMillis();
+    private volatile State state = State.QUEUED;
+    private volatile boolean paused;
+    private volatile boolean cancelled;
+    // 执行该任务的线程，取消时中断其等待（由this保护）
+    private Thread runner;
+    // 任务结束（执行完成、取消或被丢弃）时的回调，只执行一次（由this保护）
+    private Runnable onFinished;
+    private boolean finished;
+    // 排队时被单独暂停、等待继续或取消后重新入队的回调（由this保护）
+    private Runnable onRunnable;
+
+    ScanHandle(String hostKey, String description) {
+        this.hostKey = hostKey;
+        this.description = description;
+    }
+
+    public long getId() { return id; }
+    public String getHostKey() { return hostKey; }
+    public String getDescription() { return description; }
+    public long getCreatedAt() { return createdAt; }
+    public State getState() { return state; }
+    public boolean isCancelled() { return cancelled; }
+    public boolean isPaused() { return paused; }
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+        wakeUp();
+        fireRunnable();
+    }
+
+    // 取消任务：排队中的任务不再执行，执行中的任务在下一个请求前结束
+    public void cancel() {
+        cancelled = true;
+        if (state != State.DONE) {
+            state = State.CANCELLED;
+        }
+        wakeUp();
+        synchronized (this) {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+        fireRunnable();
+    }
+
+    /**
+     * 暂停中的排队任务登记重新入队的回调，继续或取消时执行一次（由PluginTaskExecutor调用）
+     * @return 已不处于暂停状态（未登记）时返回false，调用方应直接执行
+     */
+    synchronized boolean parkUntilRunnable(Runnable callback) {
+        if (!paused || cancelled) {
+            return false;
+        }
+        onRunnable = callback;
+        return true;
+    }
+
+    private void fireRunnable() {
+        Runnable callback;
+        synchronized (this) {
+            callback = onRunnable;
+            onRunnable = null;
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    // 全局暂停：排队的非主动任务不再开始，执行中的任务在下一个请求前暂停
+    public static void pauseAll() {
+        globallyPaused = true;
+    }
+
+    public static void resumeAll() {
+        globallyPaused = false;
+        wakeUp();
+    }
+
+    public static boolean isGloballyPaused() {
+        return globallyPaused;
+    }
+
+    private static void wakeUp() {
+        PAUSE_LOCK.lock();
+        try {
+            RESUMED.signalAll();
+        } finally {
+            PAUSE_LOCK.unlock();
+        }
+    }
+
+    // 注册任务结束回调（可注册多个，按注册顺序执行），任务已结束时立即执行
+    public void whenFinished(Runnable callback) {
+        synchronized (this) {
+            if (!finished) {
+                Runnable previous = onFinished;
+                onFinished = previous == null ? callback : () -> {
+                    previous.run();
+                    callback.run();
+                };
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    // 任务结束，由PluginTaskExecutor调用
+    void finished() {
+        Runnable callback;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            callback = onFinished;
+            onFinished = null;
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    // 以下由PluginTaskExecutor在工作线程中调用
+    synchronized void attach(Thread thread) {
+        runner = thread;
+        CURRENT.set(this);
+        if (!cancelled) {
+            state = State.RUNNING;
+        }
+    }
+
+    synchronized void detach() {
+        runner = null;
+        CURRENT.remove();
+        // 清除取消时设置的中断标记，避免影响线程池中的下一个任务
+        Thread.interrupted();
+        if (!cancelled) {
+            state = State.DONE;
+        }
+    }
+
+    /**
+     * 检查点：扫描在发送每个请求前调用
+     * 当前线程不是扫描任务时直接返回
+     */
+    public static void checkpoint() {
+        ScanHandle handle = CURRENT.get();
+        if (handle != null) {
+            handle.check();
+        }
+    }
+
+    private void check() {
+        if (cancelled) {
+            throw new CancelledException(id);
+        }
+        if (!paused && !globallyPaused) {
+            return;
+        }
+        state = State.PAUSED;
+        try {
+            PAUSE_LOCK.lockInterruptibly();
+            try {
+                while ((paused || globallyPaused) && !cancelled) {
+                    RESUMED.await(1, TimeUnit.SECONDS);
+                }
+            } finally {
+                PAUSE_LOCK.unlock();
+            }
+        } catch (InterruptedException e) {
+            // 暂停期间被中断（取消或插件卸载）
+            cancelled = true;
+        }
+        if (cancelled) {
+            state = State.CANCELLED;
+            throw new CancelledException(id);
+        }
+        state = State.RUNNING;
+    }
+
+    // 扫描被取消，由扫描方法捕获后直接结束
+    public static class CancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CancelledException(long id) {
+            super("扫描任务#" + id + "已取消");
+        }
+    }
+}
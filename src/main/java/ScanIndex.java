@@ -0,0 +1,355 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.MontoyaApi;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 持久化扫描去重索引（位于 logPath/index），Burp重启或多个Burp实例之间共享已扫描记录
+ * 键为 扫描类型 + 标准化URL + payload集合版本，payload修改后自动重新扫描
+ * 存储为两代滚动布隆过滤器，每代是一个内存映射的位图文件：
+ * 新记录写入当前代，当前代存在超过有效期的一半时清空另一代并切换，
+ * 因此每条记录保留有效期的一半到全部时间；查询时忽略超过有效期的代
+ * 文件只在后台线程中映射，加载完成前查询一律视为未扫描、记录先暂存，Burp的HTTP线程不会等待磁盘IO
+ */
+public class ScanIndex {
+    private static final String FILE_PREFIX = "scan-index-";
+    private static final int MAGIC = 0x4A534958; // "JSIX"
+    private static final int FORMAT_VERSION = 1;
+    // 文件头：magic(4) + 版本(4) + 创建时间(8) + 位数log2(4) + 哈希函数个数(4)，其余保留
+    private static final int HEADER_BYTES = 64;
+    // 每代2^23位（1MB），记录50万个端点时误判率约0.06%
+    private static final int BITS_LOG2 = 23;
+    private static final int HASHES = 7;
+    private static final int CLEAR_CHUNK = 64 * 1024;
+    // 加载完成前暂存的记录数上限
+    private static final int MAX_PENDING = 10000;
+
+    // 保护已加载的位图（查询、记录、切换），加载过程不持有该锁
+    private static final Object LOCK = new Object();
+    private static final AtomicBoolean loadStarted = new AtomicBoolean();
+    // 加载完成前的记录，加载后写入当前代
+    private static final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pendingCount = new AtomicInteger();
+    private static final LongAdder checks = new LongAdder();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder records = new LongAdder();
+    private static MontoyaApi montoyaApi;
+    private static volatile Generation[] generations;
+    private static volatile boolean loadFailed;
+    private static volatile boolean closed;
+
+    private ScanIndex() {
+    }
+
+    // 在后台线程中映射索引文件（未开启时不加载）
+    public static void initialize(MontoyaApi api) {
+        montoyaApi = api;
+        if (!DnslogConfig.getInstance().scanIndexEnabled) {
+            return;
+        }
+        startLoad();
+    }
+
+    // 启动后台加载（只启动一次，插件运行中开启持久化去重时由首次查询触发）
+    private static void startLoad() {
+        if (!loadStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(ScanIndex::load, "burp-plugin-scan-index");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // 该端点是否已用当前payload集合扫描过（有效期内）
+    public static boolean contains(String type, String endpoint) {
+        if (!DnslogConfig.getInstance().scanIndexEnabled) {
+            return false;
+        }
+        if (generations == null) {
+            // 加载中或加载失败，不等待
+            startLoad();
+            return false;
+        }
+        long key = key(type, endpoint);
+        long now = System.currentTimeMillis();
+        synchronized (LOCK) {
+            if (generations == null) {
+                return false;
+            }
+            checks.increment();
+            for (Generation generation : generations) {
+                if (isLive(generation, now) && generation.contains(key)) {
+                    hits.increment();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // 记录端点已扫描完成
+    public static void record(String type, String endpoint) {
+        if (!DnslogConfig.getInstance().scanIndexEnabled) {
+            return;
+        }
+        long key = key(type, endpoint);
+        if (generations == null) {
+            // 加载完成前暂存，超过上限的记录丢弃（之后只会多扫描一次）
+            if (!loadFailed && !closed && pendingCount.incrementAndGet() <= MAX_PENDING) {
+                pending.offer(key);
+            }
+            startLoad();
+            if (generations == null) {
+                return;
+            }
+            // 暂存期间加载刚好完成，由本线程写入
+        } else {
+            // 已加载时同样经暂存队列写入，与加载完成时的写入顺序一致
+            pending.offer(key);
+        }
+        synchronized (LOCK) {
+            if (generations != null) {
+                drainPending();
+            }
+        }
+    }
+
+    // 写入暂存的记录（需持有LOCK）
+    private static void drainPending() {
+        Long key;
+        while ((key = pending.poll()) != null) {
+            add(key);
+        }
+    }
+
+    // 写入当前代（需持有LOCK）
+    private static void add(long key) {
+        try {
+            rotateIfNeeded();
+            current(generations).add(key);
+            records.increment();
+        } catch (IOException e) {
+            montoyaApi.logging().logToError("扫描去重索引写入失败：" + e.getMessage());
+        }
+    }
+
+    // 清空索引，所有端点允许重新扫描
+    public static void clear() {
+        pending.clear();
+        synchronized (LOCK) {
+            if (generations == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < generations.length; i++) {
+                generations[i].reset(i == 0 ? now : 0);
+            }
+        }
+    }
+
+    public static void close() {
+        synchronized (LOCK) {
+            closed = true;
+            if (generations == null) {
+                return;
+            }
+            for (Generation generation : generations) {
+                generation.close();
+            }
+            generations = null;
+        }
+    }
+
+    public static String formatStats() {
+        synchronized (LOCK) {
+            if (!DnslogConfig.getInstance().scanIndexEnabled || generations == null) {
+                return "持久化去重索引：未加载";
+            }
+            long now = System.currentTimeMillis();
+            Generation current = current(generations);
+            return String.format("持久化去重索引：检查=%d 已扫描跳过=%d 本次记录=%d 当前代已使用=%d分钟",
+                    checks.sum(), hits.sum(), records.sum(), TimeUnit.MILLISECONDS.toMinutes(now - current.createdAt()));
+        }
+    }
+
+    // payload集合版本：FastJson/Log4j为payload包内容的哈希，Spring为路径字典的哈希
+    private static long key(String type, String endpoint) {
+        String payloadVersion = switch (type) {
+            case ScanJournal.JOB_FASTJSON -> PayloadPacks.version(PayloadPacks.FAMILY_FASTJSON);
+            case ScanJournal.JOB_LOG4J -> PayloadPacks.version(PayloadPacks.FAMILY_LOG4J);
+            default -> DnslogConfig.getInstance().springPathsVersion();
+        };
+        return DedupCache.key(type, endpoint, payloadVersion);
+    }
+
+    private static long expiryMillis() {
+        return TimeUnit.HOURS.toMillis(Math.max(1, DnslogConfig.getInstance().scanIndexExpiryHours));
+    }
+
+    private static boolean isLive(Generation generation, long now) {
+        long age = now - generation.createdAt();
+        return age >= 0 && age < expiryMillis();
+    }
+
+    private static Generation current(Generation[] gens) {
+        return gens[0].createdAt() >= gens[1].createdAt() ? gens[0] : gens[1];
+    }
+
+    // 当前代超过有效期的一半时清空另一代并切换（加文件锁，避免多个Burp实例同时切换）
+    private static void rotateIfNeeded() throws IOException {
+        long now = System.currentTimeMillis();
+        Generation current = current(generations);
+        if (now - current.createdAt() < expiryMillis() / 2) {
+            return;
+        }
+        Generation next = current == generations[0] ? generations[1] : generations[0];
+        FileLock lock = next.channel.lock();
+        try {
+            // 其他实例可能已经完成切换
+            if (current(generations) == current && now - current.createdAt() >= expiryMillis() / 2) {
+                next.reset(now);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    // 在后台线程中映射索引文件，完成后在LOCK内发布并写入暂存的记录
+    private static void load() {
+        Generation[] loaded = new Generation[2];
+        try {
+            Path dir = Paths.get(DnslogConfig.getInstance().logPath, "index");
+            Files.createDirectories(dir);
+            for (int i = 0; i < loaded.length; i++) {
+                loaded[i] = Generation.open(dir.resolve(FILE_PREFIX + i + ".bin"), i == 0);
+            }
+        } catch (IOException e) {
+            loadFailed = true;
+            pending.clear();
+            for (Generation generation : loaded) {
+                if (generation != null) {
+                    generation.close();
+                }
+            }
+            montoyaApi.logging().logToError("扫描去重索引加载失败：" + e.getMessage());
+            return;
+        }
+        synchronized (LOCK) {
+            if (closed) {
+                for (Generation generation : loaded) {
+                    generation.close();
+                }
+                return;
+            }
+            generations = loaded;
+            drainPending();
+        }
+    }
+
+    // 一代布隆过滤器：文件头 + 位图，映射后的修改由操作系统写回文件
+    private static class Generation {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Generation(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Generation open(Path path, boolean first) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = HEADER_BYTES + (1L << BITS_LOG2) / 8;
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    boolean valid = channel.size() == size;
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                    Generation generation = new Generation(channel, buffer);
+                    // 新文件或格式不一致时重新初始化
+                    if (!valid || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                            || buffer.getInt(16) != BITS_LOG2 || buffer.getInt(20) != HASHES) {
+                        generation.reset(first ? System.currentTimeMillis() : 0);
+                    }
+                    return generation;
+                } finally {
+                    // 关闭通道前释放文件锁
+                    lock.release();
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        long createdAt() {
+            return buffer.getLong(8);
+        }
+
+        void reset(long createdAt) {
+            byte[] zeros = new byte[CLEAR_CHUNK];
+            for (int offset = HEADER_BYTES; offset < buffer.capacity(); offset += CLEAR_CHUNK) {
+                buffer.put(offset, zeros, 0, Math.min(CLEAR_CHUNK, buffer.capacity() - offset));
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putLong(8, createdAt);
+            buffer.putInt(16, BITS_LOG2);
+            buffer.putInt(20, HASHES);
+        }
+
+        // 双重哈希：由64位键的高低32位生成各哈希函数的位置
+        boolean contains(long key) {
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & ((1 << BITS_LOG2) - 1);
+                if ((buffer.get(HEADER_BYTES + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long key) {
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & ((1 << BITS_LOG2) - 1);
+                int index = HEADER_BYTES + (bit >>> 3);
+                buffer.put(index, (byte) (buffer.get(index) | (1 << (bit & 7))));
+            }
+        }
+
+        void close() {
+            buffer.force();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
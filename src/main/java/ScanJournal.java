@@ -0,0 +1,491 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.collaborator.CollaboratorClient;
+import burp.api.montoya.collaborator.SecretKey;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫描任务日志（追加写入的JSON Lines文件，位于 logPath/journal/scan-journal.jsonl）
+ * 记录已提交的扫描任务、等待DNSLOG回连检查的关键词和Collaborator客户端密钥（需单独开启），
+ * 插件重新加载或Burp重启后按限速重新提交未完成的任务、恢复未检查的关键词，并定期压缩日志
+ * 记录类型：
+ * job（任务提交）/ done（任务结束）/ msg（攻击请求的URL）/ kw（待检查关键词，引用msg）/ kwdone（关键词已检查）/ collab（Collaborator密钥）
+ * 攻击请求和响应可能包含Cookie、认证头等敏感数据，msg只记录URL，恢复后命中的关键词按URL展示；
+ * 同一攻击请求注入多个注入点时只记录一次msg，每个注入点的关键词通过id引用
+ */
+public class ScanJournal {
+    public static final String JOB_FASTJSON = "fastjson";
+    public static final String JOB_LOG4J = "log4j";
+    public static final String JOB_SPRING = "spring";
+    private static final String FILE_NAME = "scan-journal.jsonl";
+    // 压缩间隔（分钟）
+    private static final long COMPACT_INTERVAL_MINUTES = 10;
+    // 压缩时保留的Collaborator密钥数量
+    private static final int MAX_COLLABORATOR_KEYS = 10;
+
+    private static final Object LOCK = new Object();
+    private static MontoyaApi montoyaApi;
+    private static Path file;
+    private static BufferedWriter writer;
+    private static ScheduledExecutorService scheduler;
+    private static volatile boolean open;
+
+    private ScanJournal() {
+    }
+
+    // 打开日志文件（未开启时不记录）
+    public static void initialize(MontoyaApi api) {
+        montoyaApi = api;
+        if (!DnslogConfig.getInstance().scanJournalEnabled) {
+            return;
+        }
+        synchronized (LOCK) {
+            try {
+                Path dir = Paths.get(DnslogConfig.getInstance().logPath, "journal");
+                Files.createDirectories(dir);
+                file = dir.resolve(FILE_NAME);
+                writer = openWriter();
+                // 上次崩溃时最后一行可能不完整，换行后再追加，避免与新记录拼接在一起
+                if (Files.size(file) > 0 && !endsWithNewline()) {
+                    writer.newLine();
+                }
+                open = true;
+            } catch (IOException e) {
+                api.logging().logToError("扫描任务日志打开失败：" + e.getMessage());
+                return;
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "burp-plugin-scan-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        // 每秒刷新一次缓冲区，崩溃时最多丢失1秒的记录
+        scheduler.scheduleWithFixedDelay(ScanJournal::flush, 1, 1, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(ScanJournal::compact, COMPACT_INTERVAL_MINUTES, COMPACT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private static boolean endsWithNewline() throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private static BufferedWriter openWriter() throws IOException {
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public static boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 记录扫描任务并提交到线程池，任务结束（完成、取消或被丢弃）时记录done；
+     * 插件卸载导致的取消不记录，下次启动时重新提交
+     */
+    public static ScanHandle submit(PluginTaskExecutor executor, Scan scan, String type, HttpRequest request, String description) {
+        String id = UUID.randomUUID().toString();
+        JSONObject record = requestRecord("job", request);
+        record.put("id", id);
+        record.put("type", type);
+        append(record);
+        return submitJob(executor, scan, id, type, request, description);
+    }
+
+    private static ScanHandle submitJob(PluginTaskExecutor executor, Scan scan, String id, String type, HttpRequest request, String description) {
+        ScanHandle handle = executor.submit(HostLimiter.keyOf(request.httpService()), jobTask(scan, type, request),
+                JOB_SPRING.equals(type) ? PluginTaskExecutor.Lane.SPRING_BRUTE : PluginTaskExecutor.Lane.PASSIVE, description);
+        if (handle != null) {
+            handle.whenFinished(() -> {
+                JSONObject done = new JSONObject();
+                done.put("op", "done");
+                done.put("id", id);
+                append(done);
+            });
+        }
+        return handle;
+    }
+
+    private static Runnable jobTask(Scan scan, String type, HttpRequest request) {
+        return switch (type) {
+            case JOB_FASTJSON -> () -> scan.fastJsonScan(request, IsJsonRequest.isJsonRequest(request));
+            case JOB_LOG4J -> () -> scan.log4jScan(request);
+            default -> () -> scan.springScan(request);
+        };
+    }
+
+    /**
+     * 记录等待回连检查的关键词及对应请求的URL，URL只记录一次，各关键词通过msg引用
+     * @param keywordToPoint key=关键词，value=注入点（没有时为null）
+     */
+    public static void keywords(Map<String, String> keywordToPoint, HttpRequestResponse requestResponse) {
+        if (!open || keywordToPoint.isEmpty()) {
+            return;
+        }
+        String id = UUID.randomUUID().toString();
+        JSONObject message = new JSONObject();
+        message.put("op", "msg");
+        message.put("id", id);
+        message.put("url", requestResponse.request().url());
+        message.put("time", System.currentTimeMillis());
+        // 持有LOCK连续写入，压缩时不会把msg与引用它的kw分开
+        synchronized (LOCK) {
+            append(message);
+            for (Map.Entry<String, String> entry : keywordToPoint.entrySet()) {
+                JSONObject record = new JSONObject();
+                record.put("op", "kw");
+                record.put("keyword", entry.getKey());
+                record.put("msg", id);
+                if (entry.getValue() != null) {
+                    record.put("point", entry.getValue());
+                }
+                append(record);
+            }
+        }
+    }
+
+    // 关键词已完成检查
+    public static void keywordsChecked(Collection<String> keywords) {
+        if (!open || keywords.isEmpty()) {
+            return;
+        }
+        JSONObject record = new JSONObject();
+        record.put("op", "kwdone");
+        record.put("keywords", new JSONArray(new ArrayList<Object>(keywords)));
+        append(record);
+    }
+
+    // 记录Collaborator客户端密钥（明文，需开启scanJournalCollaboratorSecret），重启后可恢复客户端继续查询回连记录
+    public static void collaborator(String domain, CollaboratorClient client) {
+        if (!open || !DnslogConfig.getInstance().scanJournalCollaboratorSecret) {
+            return;
+        }
+        JSONObject record = new JSONObject();
+        record.put("op", "collab");
+        record.put("domain", domain);
+        record.put("secret", client.getSecretKey().toString());
+        append(record);
+    }
+
+    private static JSONObject requestRecord(String op, HttpRequest request) {
+        JSONObject record = new JSONObject();
+        record.put("op", op);
+        record.put("host", request.httpService().host());
+        record.put("port", request.httpService().port());
+        record.put("secure", request.httpService().secure());
+        record.put("request", encode(request.toByteArray()));
+        record.put("time", System.currentTimeMillis());
+        return record;
+    }
+
+    private static String encode(ByteArray bytes) {
+        return Base64.getEncoder().encodeToString(bytes.getBytes());
+    }
+
+    private static HttpRequest decodeRequest(JSONObject record) {
+        HttpService service = HttpService.httpService(record.getString("host"), record.getIntValue("port"), record.getBooleanValue("secure"));
+        return HttpRequest.httpRequest(service, ByteArray.byteArray(Base64.getDecoder().decode(record.getString("request"))));
+    }
+
+    private static void append(JSONObject record) {
+        if (!open) {
+            return;
+        }
+        synchronized (LOCK) {
+            if (!open) {
+                return;
+            }
+            try {
+                writer.write(record.toJSONString());
+                writer.newLine();
+            } catch (IOException e) {
+                montoyaApi.logging().logToError("扫描任务日志写入失败：" + e.getMessage());
+            }
+        }
+    }
+
+    private static void flush() {
+        synchronized (LOCK) {
+            if (open) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    montoyaApi.logging().logToError("扫描任务日志写入失败：" + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 重新提交未完成的任务（按scanJournalReplayQps限速，在后台线程中进行），恢复未检查的关键词和Collaborator客户端
+     */
+    public static void replay(PluginTaskExecutor executor, Scan scan) {
+        if (!open) {
+            return;
+        }
+        Pending pending;
+        synchronized (LOCK) {
+            try {
+                writer.flush();
+                pending = new Pending();
+                readPending(pending, null);
+            } catch (IOException e) {
+                montoyaApi.logging().logToError("扫描任务日志读取失败：" + e.getMessage());
+                return;
+            }
+        }
+        DnslogConfig config = DnslogConfig.getInstance();
+        for (JSONObject record : pending.collaborators.values()) {
+            try {
+                CollaboratorClient client = montoyaApi.collaborator().restoreClient(SecretKey.secretKey(record.getString("secret")));
+                config.domainToClientMap.put(record.getString("domain"), client);
+            } catch (Exception e) {
+                montoyaApi.logging().logToError("恢复Collaborator客户端失败：" + e.getMessage());
+            }
+        }
+        for (JSONObject record : pending.keywords) {
+            // 旧版本的kw记录直接包含请求和响应
+            JSONObject message = record.containsKey("msg") ? pending.messages.get(record.getString("msg")) : record;
+            if (message == null) {
+                continue;
+            }
+            HttpRequest request = message.containsKey("url") ? HttpRequest.httpRequestFromUrl(message.getString("url")) : decodeRequest(message);
+            String response = message.getString("response");
+            HttpResponse httpResponse = response == null ? null
+                    : HttpResponse.httpResponse(ByteArray.byteArray(Base64.getDecoder().decode(response)));
+            CheckDnslogResult.getInstance().restore(record.getString("keyword"),
+                    HttpRequestResponse.httpRequestResponse(request, httpResponse), record.getString("point"));
+        }
+        if (pending.jobs.isEmpty()) {
+            compact();
+            return;
+        }
+        montoyaApi.logging().logToOutput(String.format("从扫描任务日志恢复：未完成任务%d个，待检查关键词%d个",
+                pending.jobs.size(), pending.keywords.size()));
+        Thread feeder = new Thread(() -> {
+            TokenBucket limiter = new TokenBucket(Math.max(1, config.scanJournalReplayQps));
+            try {
+                for (JSONObject record : pending.jobs) {
+                    if (!open) {
+                        return;
+                    }
+                    limiter.acquire();
+                    HttpRequest request = decodeRequest(record);
+                    String type = record.getString("type");
+                    submitJob(executor, scan, record.getString("id"), type, request, "恢复 " + type + " " + request.url());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            compact();
+        }, "burp-plugin-scan-journal-replay");
+        feeder.setDaemon(true);
+        feeder.start();
+    }
+
+    // 日志中仍然有效的记录
+    private static class Pending {
+        private final List<JSONObject> jobs = new ArrayList<>();
+        private final List<JSONObject> keywords = new ArrayList<>();
+        private final Map<String, JSONObject> messages = new HashMap<>();
+        private final Map<String, JSONObject> collaborators = new LinkedHashMap<>();
+    }
+
+    /**
+     * 读取日志并筛选有效记录（需持有LOCK），有效记录收集到pending，或直接写入out（压缩时使用，避免占用内存）
+     * 任务：没有对应done记录；关键词：之后没有kwdone记录；msg：被有效的关键词引用；
+     * Collaborator：开启保存密钥时每个域名只保留最新的密钥，未开启时全部丢弃
+     */
+    private static void readPending(Pending pending, BufferedWriter out) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Map<String, JSONObject> collaborators = new LinkedHashMap<>();
+        Set<String> doneJobs = new HashSet<>();
+        Map<String, Integer> lastChecked = new HashMap<>();
+        List<KeywordRef> keywordRefs = new ArrayList<>();
+        int lineNo = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                JSONObject record = parse(line);
+                if (record == null) {
+                    continue;
+                }
+                String op = record.getString("op");
+                if ("done".equals(op)) {
+                    doneJobs.add(record.getString("id"));
+                } else if ("kwdone".equals(op)) {
+                    JSONArray keywords = record.getJSONArray("keywords");
+                    for (int i = 0; keywords != null && i < keywords.size(); i++) {
+                        lastChecked.put(keywords.getString(i), lineNo);
+                    }
+                } else if ("kw".equals(op) && record.containsKey("msg")) {
+                    keywordRefs.add(new KeywordRef(lineNo, record.getString("keyword"), record.getString("msg")));
+                }
+            }
+        }
+        Set<String> liveMessages = new HashSet<>();
+        for (KeywordRef ref : keywordRefs) {
+            if (lastChecked.getOrDefault(ref.keyword(), 0) < ref.line()) {
+                liveMessages.add(ref.msg());
+            }
+        }
+        lineNo = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                JSONObject record = parse(line);
+                if (record == null) {
+                    continue;
+                }
+                String op = record.getString("op");
+                boolean liveJob = "job".equals(op) && !doneJobs.contains(record.getString("id"));
+                boolean liveKeyword = "kw".equals(op) && lastChecked.getOrDefault(record.getString("keyword"), 0) < lineNo;
+                if ("msg".equals(op)) {
+                    if (liveMessages.contains(record.getString("id"))) {
+                        if (out != null) {
+                            out.write(line);
+                            out.newLine();
+                        }
+                        if (pending != null) {
+                            pending.messages.put(record.getString("id"), record);
+                        }
+                    }
+                } else if ("collab".equals(op)) {
+                    if (!DnslogConfig.getInstance().scanJournalCollaboratorSecret) {
+                        continue;
+                    }
+                    collaborators.remove(record.getString("domain"));
+                    collaborators.put(record.getString("domain"), record);
+                } else if (liveJob || liveKeyword) {
+                    if (out != null) {
+                        out.write(line);
+                        out.newLine();
+                    }
+                    if (pending != null) {
+                        (liveJob ? pending.jobs : pending.keywords).add(record);
+                    }
+                }
+            }
+        }
+        // 只保留最近的若干个Collaborator密钥
+        List<String> domains = new ArrayList<>(collaborators.keySet());
+        for (int i = 0; i < domains.size() - MAX_COLLABORATOR_KEYS; i++) {
+            collaborators.remove(domains.get(i));
+        }
+        for (JSONObject record : collaborators.values()) {
+            if (out != null) {
+                out.write(record.toJSONString());
+                out.newLine();
+            }
+            if (pending != null) {
+                pending.collaborators.put(record.getString("domain"), record);
+            }
+        }
+    }
+
+    // kw记录在日志中的行号及引用的msg
+    private record KeywordRef(int line, String keyword, String msg) {
+    }
+
+    // 崩溃时最后一行可能不完整，忽略无法解析的行
+    private static JSONObject parse(String line) {
+        try {
+            return JSON.parseObject(line);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // 压缩日志：只保留有效记录，写入临时文件后原子替换
+    public static void compact() {
+        synchronized (LOCK) {
+            if (!open) {
+                return;
+            }
+            try {
+                writer.close();
+                Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+                try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    readPending(null, out);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                montoyaApi.logging().logToError("扫描任务日志压缩失败：" + e.getMessage());
+            } finally {
+                try {
+                    writer = openWriter();
+                } catch (IOException e) {
+                    open = false;
+                    montoyaApi.logging().logToError("扫描任务日志打开失败：" + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // 插件卸载：先于线程池关闭调用，之后因卸载而取消的任务不会被记录为已完成
+    public static void close() {
+        synchronized (LOCK) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                montoyaApi.logging().logToError("扫描任务日志关闭失败：" + e.getMessage());
+            }
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
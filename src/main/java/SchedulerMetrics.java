@@ -0,0 +1,144 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 扫描任务调度指标（计数器均为无锁累加）
+ * 提交/完成/异常/丢弃/暂存/拒绝的任务数，限速等待时间，排队耗时与执行耗时直方图
+ * 执行中任务数和排队数由PluginTaskExecutor在快照时提供
+ */
+public class SchedulerMetrics {
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder limiterWaits = new LongAdder();
+    private final LongAdder limiterWaitNanos = new LongAdder();
+    private final AtomicLong limiterMaxWaitNanos = new AtomicLong();
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+    private final LatencyHistogram runLatency = new LatencyHistogram();
+
+    void onSubmitted() { submitted.increment(); }
+    void onShed() { shed.increment(); }
+    void onSpilled() { spilled.increment(); }
+    void onRejected() { rejected.increment(); }
+
+    // 任务开始执行：记录排队耗时和限速等待时间
+    void onStarted(long queuedNanos, long limiterWaitNanos) {
+        queueLatency.record(queuedNanos);
+        if (limiterWaitNanos > 0) {
+            limiterWaits.increment();
+            this.limiterWaitNanos.add(limiterWaitNanos);
+            limiterMaxWaitNanos.accumulateAndGet(limiterWaitNanos, Math::max);
+        }
+    }
+
+    void onFinished(long runNanos, boolean success) {
+        runLatency.record(runNanos);
+        if (success) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    public long getSubmitted() { return submitted.sum(); }
+    public long getCompleted() { return completed.sum(); }
+    public long getFailed() { return failed.sum(); }
+    public long getShed() { return shed.sum(); }
+    public long getSpilled() { return spilled.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getLimiterWaits() { return limiterWaits.sum(); }
+    public double getLimiterWaitTotalMillis() { return limiterWaitNanos.sum() / 1_000_000.0; }
+    public double getLimiterMaxWaitMillis() { return limiterMaxWaitNanos.get() / 1_000_000.0; }
+    public LatencyHistogram getQueueLatency() { return queueLatency; }
+    public LatencyHistogram getRunLatency() { return runLatency; }
+
+    // 格式化指标，供UI展示（active/queued/backlog为调用方提供的实时值）
+    public String format(int active, int maxActive, int queued, int backlog) {
+        return String.format("执行中=%d/%d 排队=%d 积压=%d%n", active, maxActive, queued, backlog)
+                + String.format("提交=%d 完成=%d 异常=%d 丢弃=%d 暂存=%d 拒绝=%d%n", getSubmitted(), getCompleted(),
+                getFailed(), getShed(), getSpilled(), getRejected())
+                + String.format("限速等待 次数=%d 累计=%.1fms 最大=%.1fms%n", getLimiterWaits(),
+                getLimiterWaitTotalMillis(), getLimiterMaxWaitMillis())
+                + "排队耗时 " + queueLatency.describe() + System.lineSeparator()
+                + "执行耗时 " + runLatency.describe() + System.lineSeparator();
+    }
+
+    /**
+     * 延迟直方图：按2的幂划分微秒区间（第i个桶为[2^(i-1), 2^i)微秒），分位数取所在桶的上界
+     */
+    public static class LatencyHistogram {
+        private static final int BUCKETS = 40;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            counts.incrementAndGet(bucket);
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                sum += counts.get(i);
+            }
+            return sum;
+        }
+
+        // 分位数（毫秒），q取值0-1
+        public double percentileMillis(double q) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * q);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min((1L << i), maxNanos.get() / 1000) / 1000.0;
+                }
+            }
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        public double getAvgMillis() {
+            long count = getCount();
+            return count == 0 ? 0 : totalNanos.sum() / (double) count / 1_000_000.0;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        public String describe() {
+            return String.format("次数=%d 平均=%.2fms P50≤%.2fms P90≤%.2fms P99≤%.2fms 最大=%.2fms", getCount(),
+                    getAvgMillis(), percentileMillis(0.5), percentileMillis(0.9), percentileMillis(0.99), getMaxMillis());
+        }
+    }
+}
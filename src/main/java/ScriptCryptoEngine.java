@@ -0,0 +1,164 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import javax.script.Compilable;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 进程内脚本加解密引擎（无需启动外部接口服务）
+ * 支持两种形式：
+ * 1. JSR-223脚本（按扩展名选择脚本引擎，如.groovy/.js），脚本中定义与stage同名的函数，
+ *    入参为数据包Map，返回修改后的Map（返回空则使用原Map）；未定义的stage原样放行
+ * 2. 已编译的Java类（.jar），类需实现 BiFunction&lt;String, Map&lt;String,Object&gt;, Map&lt;String,Object&gt;&gt;，
+ *    第一个参数为stage
+ * 脚本只编译一次并缓存，文件修改后自动重新加载
+ */
+public class ScriptCryptoEngine implements CryptoEngine {
+    // 检查脚本文件是否修改的最小间隔（毫秒）
+    private static final long RELOAD_CHECK_INTERVAL_MS = 1000;
+
+    private final File scriptFile;
+    private final String className;
+    private volatile Transformer transformer;
+    private volatile long loadedModified = -1;
+    private volatile long lastCheckTime;
+    private URLClassLoader classLoader;
+
+    // 编译后的转换函数
+    private interface Transformer {
+        Map<String, Object> apply(String stage, Map<String, Object> data) throws Exception;
+    }
+
+    public ScriptCryptoEngine(String scriptPath, String className) {
+        this.scriptFile = new File(scriptPath);
+        this.className = className;
+    }
+
+    @Override
+    public String name() {
+        return "script";
+    }
+
+    @Override
+    public CryptoDelta requestDelta(HttpRequest request, String stage) throws Exception {
+        Map<String, Object> original = CryptoEnvelope.buildRequestData(request);
+        // 脚本可能直接修改入参Map，因此传入副本，保留原始数据用于计算差异
+        Map<String, Object> result = getTransformer().apply(stage, CryptoEnvelope.copyData(original));
+        return CryptoDelta.forRequest(original, result);
+    }
+
+    @Override
+    public CryptoDelta responseDelta(HttpResponse response, String stage) throws Exception {
+        Map<String, Object> original = CryptoEnvelope.buildResponseData(response);
+        Map<String, Object> result = getTransformer().apply(stage, CryptoEnvelope.copyData(original));
+        return CryptoDelta.forResponse(original, result);
+    }
+
+    // 脚本文件的修改时间即为版本号，重新加载后缓存随之作废
+    @Override
+    public long generation() {
+        return loadedModified;
+    }
+
+    // 获取已编译的转换函数，文件变化时重新编译
+    private Transformer getTransformer() throws Exception {
+        long now = System.currentTimeMillis();
+        if (transformer != null && now - lastCheckTime < RELOAD_CHECK_INTERVAL_MS) {
+            return transformer;
+        }
+        synchronized (this) {
+            lastCheckTime = now;
+            if (!scriptFile.isFile()) {
+                throw new IOException("加解密脚本不存在：" + scriptFile.getAbsolutePath());
+            }
+            long modified = scriptFile.lastModified();
+            if (transformer == null || modified != loadedModified) {
+                transformer = scriptFile.getName().toLowerCase().endsWith(".jar") ? loadJar() : loadScript();
+                loadedModified = modified;
+            }
+            return transformer;
+        }
+    }
+
+    // 加载已编译的Java类
+    @SuppressWarnings("unchecked")
+    private Transformer loadJar() throws Exception {
+        if (className == null || className.isEmpty()) {
+            throw new IllegalStateException("使用jar加解密时需配置实现类名");
+        }
+        if (classLoader != null) {
+            classLoader.close();
+        }
+        classLoader = new URLClassLoader(new java.net.URL[]{scriptFile.toURI().toURL()}, ScriptCryptoEngine.class.getClassLoader());
+        Object instance = classLoader.loadClass(className).getDeclaredConstructor().newInstance();
+        if (!(instance instanceof BiFunction)) {
+            throw new IllegalStateException(className + " 未实现 java.util.function.BiFunction");
+        }
+        BiFunction<String, Map<String, Object>, Map<String, Object>> function =
+                (BiFunction<String, Map<String, Object>, Map<String, Object>>) instance;
+        return (stage, data) -> {
+            Map<String, Object> result = function.apply(stage, data);
+            return result != null ? result : data;
+        };
+    }
+
+    // 编译JSR-223脚本并缓存
+    @SuppressWarnings("unchecked")
+    private Transformer loadScript() throws Exception {
+        String fileName = scriptFile.getName();
+        String extension = fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.') + 1) : "";
+        ScriptEngine engine = new ScriptEngineManager(ScriptCryptoEngine.class.getClassLoader()).getEngineByExtension(extension);
+        if (engine == null) {
+            throw new IllegalStateException("未找到扩展名为 ." + extension + " 的JSR-223脚本引擎");
+        }
+        if (!(engine instanceof Invocable invocable)) {
+            throw new IllegalStateException(engine.getFactory().getEngineName() + " 不支持函数调用");
+        }
+        String source = Files.readString(scriptFile.toPath(), StandardCharsets.UTF_8);
+        // 支持预编译的引擎只编译一次，执行后脚本中的函数即被定义
+        if (engine instanceof Compilable compilable) {
+            compilable.compile(source).eval();
+        } else {
+            engine.eval(source);
+        }
+        // 引擎未声明线程安全时串行调用
+        boolean threadSafe = engine.getFactory().getParameter("THREADING") != null;
+        return (stage, data) -> {
+            Object result;
+            try {
+                if (threadSafe) {
+                    result = invocable.invokeFunction(stage, data);
+                } else {
+                    synchronized (engine) {
+                        result = invocable.invokeFunction(stage, data);
+                    }
+                }
+            } catch (NoSuchMethodException e) {
+                // 脚本未定义该阶段的函数，原样放行
+                return data;
+            }
+            return result instanceof Map ? (Map<String, Object>) result : data;
+        };
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌桶限速器（无锁）：用CAS推进“下一个令牌的可用时间”，每次预约返回可以执行的截止时间，
+ * 等待在调用线程中进行，预约本身不加锁也不睡眠
+ * 扫描任务的全局限速和每个目标主机的请求限速共用
+ */
+public class TokenBucket {
+    // 下一个令牌的可用时间（System.nanoTime）
+    private final AtomicLong nextFreeNanos;
+    private volatile Rate rate;
+
+    // 令牌间隔与可累积的突发时长，整体替换以保证一致
+    private record Rate(double qps, long intervalNanos, long burstNanos) {
+        static Rate of(double qps) {
+            long interval = Math.max(1, (long) (1_000_000_000 / qps));
+            long burst = Math.max(1, (long) Math.ceil(qps));
+            return new Rate(qps, interval, (burst - 1) * interval);
+        }
+    }
+
+    public TokenBucket(double qps) {
+        this.rate = Rate.of(qps);
+        // 初始即可使用全部突发令牌
+        this.nextFreeNanos = new AtomicLong(System.nanoTime() - rate.burstNanos());
+    }
+
+    /**
+     * 获取一个令牌，需要时在调用线程中等待
+     * @return 实际等待的纳秒数
+     */
+    public long acquire() throws InterruptedException {
+        long waitNanos = reserve() - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            return waitNanos;
+        }
+        return 0;
+    }
+
+    // 调整速率（自适应限速使用），已积累的令牌不超过新的突发上限
+    public void setRate(double qps) {
+        rate = Rate.of(qps);
+    }
+
+    public double getRate() {
+        return rate.qps();
+    }
+
+    /**
+     * 预约一个令牌，返回可以执行的时间（System.nanoTime），不早于当前时间即需等待
+     */
+    public long reserve() {
+        while (true) {
+            Rate current = rate;
+            long now = System.nanoTime();
+            long next = nextFreeNanos.get();
+            // 空闲期间积累的令牌不超过突发上限
+            long start = Math.max(next, now - current.burstNanos());
+            if (nextFreeNanos.compareAndSet(next, start + current.intervalNanos())) {
+                return start;
+            }
+        }
+    }
+}
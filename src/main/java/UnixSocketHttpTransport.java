@@ -0,0 +1,308 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基于Unix域套接字（AF_UNIX）的极简HTTP/1.1客户端，仅用于连接本机的加解密接口
+ * 地址格式：unix:/tmp/jaysen.sock 或 unix:///tmp/jaysen.sock
+ * 连接保持keep-alive，用完放回空闲队列复用；并发上限由CryptoBridgeClient的许可控制
+ */
+public class UnixSocketHttpTransport {
+    public static final String SCHEME = "unix:";
+
+    private final UnixDomainSocketAddress address;
+    private final long readTimeoutMs;
+    private final ConcurrentLinkedQueue<Connection> idleConnections = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    // 接口返回的状态码和响应体
+    public record Response(int statusCode, byte[] body) {
+    }
+
+    public UnixSocketHttpTransport(String url, long readTimeoutMs) {
+        this.address = UnixDomainSocketAddress.of(socketPath(url));
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public static boolean isUnixAddress(String url) {
+        return url != null && url.startsWith(SCHEME);
+    }
+
+    // 从地址中解析套接字文件路径
+    public static Path socketPath(String url) {
+        String path = url.substring(SCHEME.length());
+        while (path.startsWith("//")) {
+            path = path.substring(1);
+        }
+        return Path.of(path);
+    }
+
+    /**
+     * 发送一次HTTP请求
+     * @param method 请求方法
+     * @param path 请求路径（如/RequestReceived）
+     * @param contentType 请求体类型，GET请求传null
+     * @param chunks 请求体分块，GET请求传null
+     * @param contentLength 请求体总长度
+     */
+    public Response exchange(String method, String path, String contentType, Iterable<byte[]> chunks,
+                             long contentLength) throws IOException {
+        if (closed) {
+            throw new IOException("加解密接口客户端已关闭");
+        }
+        StringBuilder head = new StringBuilder();
+        head.append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                .append("Host: localhost\r\n");
+        if (chunks != null) {
+            head.append("Content-Type: ").append(contentType).append("\r\n")
+                    .append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        head.append("\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+        Connection connection = idleConnections.poll();
+        if (connection != null) {
+            try {
+                return exchange(connection, headBytes, chunks);
+            } catch (SocketTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                // 复用的空闲连接可能已被服务端关闭，尚未收到响应时换新连接重试一次
+                if (connection.responseStarted) {
+                    throw e;
+                }
+            }
+        }
+        return exchange(new Connection(), headBytes, chunks);
+    }
+
+    private Response exchange(Connection connection, byte[] headBytes, Iterable<byte[]> chunks) throws IOException {
+        try {
+            Response response = connection.exchange(headBytes, chunks);
+            if (connection.keepAlive && !closed) {
+                idleConnections.offer(connection);
+            } else {
+                connection.close();
+            }
+            return response;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        } catch (RuntimeException e) {
+            connection.close();
+            throw new IOException("加解密接口响应格式异常：" + e.getMessage(), e);
+        }
+    }
+
+    // 关闭所有空闲连接
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    // 单条连接：非阻塞通道 + Selector实现读写超时
+    private class Connection {
+        private final SocketChannel channel;
+        private final Selector selector;
+        private final SelectionKey key;
+        private final ByteBuffer buffer = ByteBuffer.allocate(16 * 1024).flip();
+        private long deadline;
+        private boolean keepAlive;
+        private boolean responseStarted;
+
+        Connection() throws IOException {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                channel.connect(address);
+                channel.configureBlocking(false);
+                selector = Selector.open();
+                key = channel.register(selector, 0);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        Response exchange(byte[] head, Iterable<byte[]> chunks) throws IOException {
+            deadline = System.nanoTime() + readTimeoutMs * 1_000_000L;
+            keepAlive = false;
+            responseStarted = false;
+            write(ByteBuffer.wrap(head));
+            if (chunks != null) {
+                for (byte[] chunk : chunks) {
+                    write(ByteBuffer.wrap(chunk));
+                }
+            }
+            String statusLine = readLine();
+            responseStarted = true;
+            String[] parts = statusLine.split(" ", 3);
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                throw new IOException("加解密接口返回的状态行异常：" + statusLine);
+            }
+            int statusCode = Integer.parseInt(parts[1]);
+            long contentLength = -1;
+            boolean chunked = false;
+            boolean connectionClose = "HTTP/1.0".equals(parts[0]);
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon <= 0) {
+                    continue;
+                }
+                String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = line.substring(colon + 1).trim();
+                switch (name) {
+                    case "content-length" -> contentLength = Long.parseLong(value);
+                    case "transfer-encoding" -> chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+                    case "connection" -> connectionClose = value.equalsIgnoreCase("close");
+                    default -> {
+                    }
+                }
+            }
+            byte[] body;
+            if (chunked) {
+                body = readChunked();
+            } else if (contentLength >= 0) {
+                body = readFully(Math.toIntExact(contentLength));
+            } else {
+                // 没有长度信息时读到连接关闭为止
+                body = readToEnd();
+                connectionClose = true;
+            }
+            keepAlive = !connectionClose;
+            return new Response(statusCode, body);
+        }
+
+        private void write(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                if (channel.write(source) == 0) {
+                    await(SelectionKey.OP_WRITE);
+                }
+            }
+        }
+
+        // 读取缓冲区中的数据，不足时等待
+        private boolean fill() throws IOException {
+            buffer.compact();
+            try {
+                while (true) {
+                    int read = channel.read(buffer);
+                    if (read > 0) {
+                        return true;
+                    }
+                    if (read < 0) {
+                        return false;
+                    }
+                    await(SelectionKey.OP_READ);
+                }
+            } finally {
+                buffer.flip();
+            }
+        }
+
+        private void await(int ops) throws IOException {
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+            if (remainingMs <= 0) {
+                throw new SocketTimeoutException("加解密接口读取超时");
+            }
+            key.interestOps(ops);
+            selector.select(remainingMs);
+            selector.selectedKeys().clear();
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            while (true) {
+                if (!buffer.hasRemaining() && !fill()) {
+                    throw new EOFException("加解密接口连接已关闭");
+                }
+                byte b = buffer.get();
+                if (b == '\n') {
+                    break;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.ISO_8859_1);
+        }
+
+        private byte[] readFully(int length) throws IOException {
+            byte[] result = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                if (!buffer.hasRemaining() && !fill()) {
+                    throw new EOFException("加解密接口响应不完整");
+                }
+                int count = Math.min(buffer.remaining(), length - offset);
+                buffer.get(result, offset, count);
+                offset += count;
+            }
+            return result;
+        }
+
+        private byte[] readChunked() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                String sizeLine = readLine();
+                int semicolon = sizeLine.indexOf(';');
+                int size = Integer.parseInt((semicolon >= 0 ? sizeLine.substring(0, semicolon) : sizeLine).trim(), 16);
+                if (size == 0) {
+                    // 跳过trailer
+                    while (!readLine().isEmpty()) {
+                    }
+                    return body.toByteArray();
+                }
+                body.write(readFully(size));
+                readLine();
+            }
+        }
+
+        private byte[] readToEnd() throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            do {
+                body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            } while (fill());
+            return body.toByteArray();
+        }
+
+        void close() {
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
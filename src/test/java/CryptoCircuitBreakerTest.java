@@ -0,0 +1,170 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CryptoCircuitBreakerTest {
+    private static final long FAST = 1_000_000L;
+    private static final long SLOW = 2_000_000_000L;
+    private static final long OPEN_MS = 50;
+
+    private final DnslogConfig config = DnslogConfig.getInstance();
+    private boolean enabled;
+    private int failureRate;
+    private int slowMs;
+    private int openMs;
+    private int readTimeoutMs;
+
+    @BeforeEach
+    void configure() {
+        enabled = config.cryptoBreakerEnabled;
+        failureRate = config.cryptoBreakerFailureRate;
+        slowMs = config.cryptoBreakerSlowMs;
+        openMs = config.cryptoBreakerOpenMs;
+        readTimeoutMs = config.cryptoReadTimeoutMs;
+        config.cryptoBreakerEnabled = true;
+        config.cryptoBreakerFailureRate = 50;
+        config.cryptoBreakerSlowMs = 1000;
+        config.cryptoBreakerOpenMs = (int) OPEN_MS;
+        // 探测超时为 2 * 1 + 1000 毫秒
+        config.cryptoReadTimeoutMs = 1;
+    }
+
+    @AfterEach
+    void restore() {
+        config.cryptoBreakerEnabled = enabled;
+        config.cryptoBreakerFailureRate = failureRate;
+        config.cryptoBreakerSlowMs = slowMs;
+        config.cryptoBreakerOpenMs = openMs;
+        config.cryptoReadTimeoutMs = readTimeoutMs;
+    }
+
+    private CryptoCircuitBreaker open() throws Exception {
+        CryptoCircuitBreaker breaker = new CryptoCircuitBreaker(config);
+        for (int i = 0; i < 5; i++) {
+            breaker.acquire();
+            breaker.onFailure("connect refused");
+        }
+        assertEquals(CryptoCircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    // 等待熔断时长结束并放行探测调用
+    private CryptoCircuitBreaker halfOpen() throws Exception {
+        CryptoCircuitBreaker breaker = open();
+        Thread.sleep(OPEN_MS + 30);
+        breaker.acquire();
+        assertEquals(CryptoCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        return breaker;
+    }
+
+    @Test
+    void opensOnlyAfterMinimumCalls() throws Exception {
+        CryptoCircuitBreaker breaker = new CryptoCircuitBreaker(config);
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure("timeout");
+        }
+        assertEquals(CryptoCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure("timeout");
+        assertEquals(CryptoCircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CryptoCircuitBreaker.OpenException.class, breaker::acquire);
+    }
+
+    @Test
+    void opensAtFailureRateIncludingSlowCalls() {
+        CryptoCircuitBreaker breaker = new CryptoCircuitBreaker(config);
+        for (int i = 0; i < 5; i++) {
+            breaker.onSuccess(FAST);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(SLOW);
+        }
+        // 4/9 低于50%
+        assertEquals(CryptoCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onSuccess(SLOW);
+        assertEquals(CryptoCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsSingleProbe() throws Exception {
+        CryptoCircuitBreaker breaker = open();
+        assertThrows(CryptoCircuitBreaker.OpenException.class, breaker::acquire);
+        Thread.sleep(OPEN_MS + 30);
+        assertDoesNotThrow(breaker::acquire);
+        assertEquals(CryptoCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // 探测进行中，其余调用继续快速失败
+        assertThrows(CryptoCircuitBreaker.OpenException.class, breaker::acquire);
+    }
+
+    @Test
+    void successfulProbeCloses() throws Exception {
+        CryptoCircuitBreaker breaker = halfOpen();
+        breaker.onSuccess(FAST);
+        assertEquals(CryptoCircuitBreaker.State.CLOSED, breaker.getState());
+        assertDoesNotThrow(breaker::acquire);
+        // 窗口已清空，重新累计
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure("timeout");
+        }
+        assertEquals(CryptoCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedOrSlowProbeReopens() throws Exception {
+        CryptoCircuitBreaker breaker = halfOpen();
+        breaker.onFailure("connect refused");
+        assertEquals(CryptoCircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CryptoCircuitBreaker.OpenException.class, breaker::acquire);
+
+        breaker = halfOpen();
+        breaker.onSuccess(SLOW);
+        assertEquals(CryptoCircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CryptoCircuitBreaker.OpenException.class, breaker::acquire);
+    }
+
+    @Test
+    void probeTimeoutAllowsNextProbe() throws Exception {
+        CryptoCircuitBreaker breaker = halfOpen();
+        assertThrows(CryptoCircuitBreaker.OpenException.class, breaker::acquire);
+        // 探测结果丢失，超过 2 * 读取超时 + 1秒 后重新放行一次探测
+        Thread.sleep(1002 + 100);
+        assertDoesNotThrow(breaker::acquire);
+        assertEquals(CryptoCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertThrows(CryptoCircuitBreaker.OpenException.class, breaker::acquire);
+    }
+
+    @Test
+    void ignoredProbeReleasesSlot() throws Exception {
+        CryptoCircuitBreaker breaker = halfOpen();
+        breaker.onIgnored();
+        assertDoesNotThrow(breaker::acquire);
+        assertEquals(CryptoCircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void disabledNeverOpens() {
+        config.cryptoBreakerEnabled = false;
+        CryptoCircuitBreaker breaker = new CryptoCircuitBreaker(config);
+        for (int i = 0; i < 50; i++) {
+            breaker.onFailure("timeout");
+        }
+        assertEquals(CryptoCircuitBreaker.State.CLOSED, breaker.getState());
+        assertDoesNotThrow(breaker::acquire);
+    }
+}
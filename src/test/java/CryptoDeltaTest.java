@@ -0,0 +1,89 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CryptoDeltaTest {
+
+    // 只实现创建请求头的工厂方法（Montoya的工厂由Burp运行时提供）
+    @BeforeAll
+    static void installFactory() {
+        ObjectFactoryLocator.FACTORY = (MontoyaObjectFactory) Proxy.newProxyInstance(
+                MontoyaObjectFactory.class.getClassLoader(), new Class<?>[]{MontoyaObjectFactory.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("httpHeader") && args != null && args.length == 2) {
+                        return header((String) args[0], (String) args[1]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static HttpHeader header(String name, String value) {
+        return (HttpHeader) Proxy.newProxyInstance(HttpHeader.class.getClassLoader(), new Class<?>[]{HttpHeader.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "name" -> name;
+                    case "value" -> value;
+                    case "toString" -> name + ": " + value;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void unchangedFlagYieldsEmptyDelta() {
+        Map<String, Object> original = Map.of("headers", Map.of("X-Sign", "a"), "body", "cipher");
+        assertTrue(CryptoDelta.forResponse(original, Map.of(CryptoDelta.UNCHANGED_FLAG, true)).isEmpty());
+        assertTrue(CryptoDelta.forResponse(original, null).isEmpty());
+    }
+
+    @Test
+    void missingFieldsMeanUnmodified() {
+        Map<String, Object> original = Map.of("headers", Map.of("X-Sign", "a"), "body", "cipher");
+        CryptoDelta delta = CryptoDelta.forResponse(original, Map.of());
+        assertTrue(delta.isEmpty());
+        assertTrue(delta.touchedHeaders().isEmpty());
+    }
+
+    @Test
+    void sameValuesYieldEmptyDelta() {
+        Map<String, Object> original = Map.of("headers", Map.of("X-Sign", "a"), "body", "cipher");
+        assertTrue(CryptoDelta.forResponse(original, original).isEmpty());
+    }
+
+    @Test
+    void tracksAddedUpdatedAndRemovedHeaders() {
+        Map<String, Object> original = Map.of("headers", Map.of("X-Sign", "a", "X-Nonce", "1", "Accept", "*/*"));
+        Map<String, Object> result = Map.of("headers", Map.of("X-Sign", "b", "Accept", "*/*", "X-Trace", "t"));
+        CryptoDelta delta = CryptoDelta.forResponse(original, result);
+        assertFalse(delta.isEmpty());
+        assertEquals(Set.of("x-sign", "x-nonce", "x-trace"), delta.touchedHeaders());
+    }
+
+    @Test
+    void bodyChangeDoesNotTouchHeaders() {
+        Map<String, Object> original = Map.of("body", "cipher");
+        CryptoDelta delta = CryptoDelta.forResponse(original, Map.of("body", "{\"plain\":1}"));
+        assertFalse(delta.isEmpty());
+        assertTrue(delta.touchedHeaders().isEmpty());
+    }
+}
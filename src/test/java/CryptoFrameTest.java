@@ -0,0 +1,124 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.core.ByteArray;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CryptoFrameTest {
+
+    // ByteArray的最小实现（Montoya的工厂方法需要Burp运行环境）
+    private static ByteArray byteArray(byte[] bytes) {
+        return (ByteArray) Proxy.newProxyInstance(ByteArray.class.getClassLoader(), new Class<?>[]{ByteArray.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "length" -> bytes.length;
+                    case "getBytes" -> bytes.clone();
+                    case "subArray" -> byteArray(Arrays.copyOfRange(bytes, (int) args[0], (int) args[1]));
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static byte[] concat(CryptoFrame.Encoded encoded) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] chunk : encoded.chunks()) {
+            out.writeBytes(chunk);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] frame(int length, byte[] head) {
+        return ByteBuffer.allocate(4 + head.length).putInt(length).put(head).array();
+    }
+
+    @Test
+    void roundTripsWithoutBody() throws IOException {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("action", "encrypt");
+        envelope.put("url", "https://t.example/api/登录");
+        CryptoFrame.Encoded encoded = CryptoFrame.encode(envelope, null);
+        byte[] bytes = concat(encoded);
+        assertEquals(encoded.length(), bytes.length);
+
+        CryptoFrame frame = CryptoFrame.read(new ByteArrayInputStream(bytes));
+        assertEquals("encrypt", frame.envelope().get("action"));
+        assertEquals("https://t.example/api/登录", frame.envelope().get("url"));
+        assertEquals(false, frame.envelope().get(CryptoFrame.BODY_INCLUDED));
+        assertNull(frame.body());
+    }
+
+    @Test
+    void roundTripsBinaryBodyInChunks() throws IOException {
+        byte[] body = new byte[200 * 1024 + 7];
+        new Random(1).nextBytes(body);
+        CryptoFrame.Encoded encoded = CryptoFrame.encode(new LinkedHashMap<>(Map.of("action", "decrypt")), byteArray(body));
+
+        int chunks = 0;
+        for (byte[] chunk : encoded.chunks()) {
+            assertTrue(chunk.length <= 64 * 1024);
+            chunks++;
+        }
+        // 长度前缀、信封、4个body分块
+        assertEquals(6, chunks);
+        // 可重复遍历（HttpClient重试时会重新订阅）
+        byte[] bytes = concat(encoded);
+        assertArrayEquals(bytes, concat(encoded));
+        assertEquals(encoded.length(), bytes.length);
+
+        CryptoFrame frame = CryptoFrame.read(new ByteArrayInputStream(bytes));
+        assertEquals(true, frame.envelope().get(CryptoFrame.BODY_INCLUDED));
+        assertArrayEquals(body, frame.body());
+    }
+
+    @Test
+    void roundTripsEmptyBody() throws IOException {
+        CryptoFrame.Encoded encoded = CryptoFrame.encode(new LinkedHashMap<>(), byteArray(new byte[0]));
+        CryptoFrame frame = CryptoFrame.read(new ByteArrayInputStream(concat(encoded)));
+        assertArrayEquals(new byte[0], frame.body());
+    }
+
+    @Test
+    void rejectsEnvelopeLengthOutOfBounds() {
+        byte[] head = "{}".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> CryptoFrame.read(new ByteArrayInputStream(frame(-1, head))));
+        assertThrows(IOException.class,
+                () -> CryptoFrame.read(new ByteArrayInputStream(frame(16 * 1024 * 1024 + 1, head))));
+    }
+
+    @Test
+    void rejectsTruncatedFrame() {
+        byte[] head = "{\"action\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> CryptoFrame.read(new ByteArrayInputStream(frame(head.length + 1, head))));
+        assertThrows(IOException.class, () -> CryptoFrame.read(new ByteArrayInputStream(new byte[]{0, 0})));
+    }
+
+    @Test
+    void rejectsNullEnvelope() {
+        byte[] head = "null".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> CryptoFrame.read(new ByteArrayInputStream(frame(head.length, head))));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DedupCacheTest {
+
+    @Test
+    void keySeparatesParts() {
+        assertEquals(DedupCache.key("a", "bc"), DedupCache.key("a", "bc"));
+        assertNotEquals(DedupCache.key("a", "bc"), DedupCache.key("ab", "c"));
+    }
+
+    @Test
+    void entryExpiresAfterTtl() throws InterruptedException {
+        DedupCache cache = new DedupCache(100);
+        long key = DedupCache.key("GET", "http://t/a");
+        assertTrue(cache.claim(key, 100));
+        assertFalse(cache.claim(key, 100));
+        // 有效期带±10%抖动，等待超过最大值
+        Thread.sleep(200);
+        assertTrue(cache.claim(key, 100));
+        assertFalse(cache.claim(key, 100));
+    }
+
+    @Test
+    void releaseAllowsReclaim() {
+        DedupCache cache = new DedupCache(100);
+        long key = DedupCache.key("GET", "http://t/b");
+        assertTrue(cache.claim(key, 60_000));
+        cache.release(key);
+        assertTrue(cache.claim(key, 60_000));
+    }
+
+    @Test
+    void concurrentClaimHasSingleWinner() throws Exception {
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                DedupCache cache = new DedupCache(1000);
+                long key = DedupCache.key("POST", "http://t/c", String.valueOf(round));
+                CountDownLatch start = new CountDownLatch(1);
+                AtomicInteger winners = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        if (cache.claim(key, 60_000)) {
+                            winners.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals(1, winners.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void evictsBeyondCapacity() {
+        DedupCache cache = new DedupCache(16);
+        for (int i = 0; i < 1000; i++) {
+            cache.claim(DedupCache.key(String.valueOf(i)), 60_000);
+        }
+        // 每段容量为1
+        assertTrue(cache.size() <= 16);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonSplicerTest {
+    private static final String PAYLOAD = "{\"@type\":\"x\"}";
+
+    // 每个叶子位置的原文必须是完整的对象
+    private static void assertLeavesAreObjects(String json, List<JsonSplicer.Slot> slots) {
+        for (JsonSplicer.Slot slot : slots) {
+            if (slot.start() == slot.end()) {
+                continue;
+            }
+            String text = json.substring(slot.start(), slot.end());
+            assertEquals('{', text.charAt(0), slot.path());
+            assertEquals('}', text.charAt(text.length() - 1), slot.path());
+            JSON.parseObject(text);
+        }
+    }
+
+    private static List<String> paths(List<JsonSplicer.Slot> slots) {
+        List<String> paths = new ArrayList<>();
+        for (JsonSplicer.Slot slot : slots) {
+            paths.add(slot.path());
+        }
+        return paths;
+    }
+
+    private static String spliceAll(String json, List<JsonSplicer.Slot> slots) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            values.add(PAYLOAD);
+        }
+        return JsonSplicer.splice(json, slots, values);
+    }
+
+    @Test
+    void locatesWrapAndNestedLeaves() {
+        String json = "{\"a\":1,\"user\":{\"name\":\"n\",\"addr\":{\"city\":\"c\"}},\"tags\":[1,2]}";
+        List<JsonSplicer.Slot> slots = JsonSplicer.locate(json);
+        assertEquals(List.of("$+", "$.user.addr"), paths(slots));
+        assertLeavesAreObjects(json, slots);
+
+        JSONObject spliced = JSON.parseObject(spliceAll(json, slots));
+        assertEquals("x", spliced.getJSONObject(JsonSplicer.WRAP_KEY).getString("@type"));
+        assertEquals("x", spliced.getJSONObject("user").getJSONObject("addr").getString("@type"));
+        assertEquals(1, spliced.getIntValue("a"));
+        assertEquals("n", spliced.getJSONObject("user").getString("name"));
+    }
+
+    @Test
+    void handlesLeadingAndTrailingWhitespace() {
+        String json = " \r\n\t{ \"o\" : { \"k\" : 1 } }  \n";
+        List<JsonSplicer.Slot> slots = JsonSplicer.locate(json);
+        assertEquals(List.of("$+", "$.o"), paths(slots));
+        assertLeavesAreObjects(json, slots);
+        JSONObject spliced = JSON.parseObject(spliceAll(json, slots));
+        assertEquals("x", spliced.getJSONObject("o").getString("@type"));
+    }
+
+    @Test
+    void handlesByteOrderMark() {
+        String json = "﻿{\"o\":{\"k\":1}}";
+        List<JsonSplicer.Slot> slots = JsonSplicer.locate(json);
+        assertEquals(List.of("$+", "$.o"), paths(slots));
+        assertLeavesAreObjects(json, slots);
+        String spliced = spliceAll(json, slots);
+        assertTrue(spliced.startsWith("﻿{"));
+        assertEquals("x", JSON.parseObject(spliced.substring(1)).getJSONObject("o").getString("@type"));
+    }
+
+    @Test
+    void ignoresBracesInsideEscapedStrings() {
+        String json = "{\"s\":\"a\\\"}{\",\"o\":{\"x\":\"}\\\\\",\"y\":\"{\\\"q\\\":1}\"},\"t\":\"}\"}";
+        List<JsonSplicer.Slot> slots = JsonSplicer.locate(json);
+        assertEquals(List.of("$+", "$.o"), paths(slots));
+        assertLeavesAreObjects(json, slots);
+        JSONObject spliced = JSON.parseObject(spliceAll(json, slots));
+        assertEquals("a\"}{", spliced.getString("s"));
+        assertEquals("}", spliced.getString("t"));
+        assertEquals("x", spliced.getJSONObject("o").getString("@type"));
+    }
+
+    @Test
+    void handlesArrayOfObjectsAtRoot() {
+        String json = "[{\"a\":1}, {\"b\":{\"c\":2}}, 3]";
+        List<JsonSplicer.Slot> slots = JsonSplicer.locate(json);
+        assertEquals(List.of("$+", "$[0]", "$[1].b"), paths(slots));
+        assertLeavesAreObjects(json, slots);
+        JSONArray spliced = JSON.parseArray(spliceAll(json, slots));
+        assertEquals(4, spliced.size());
+        assertEquals("x", spliced.getJSONObject(0).getString("@type"));
+        assertEquals("x", spliced.getJSONObject(1).getString("@type"));
+        assertEquals("x", spliced.getJSONObject(2).getJSONObject("b").getString("@type"));
+        assertEquals(3, spliced.getIntValue(3));
+    }
+
+    @Test
+    void wrapsEmptyObjectWithoutTrailingComma() {
+        String json = "{ }";
+        List<JsonSplicer.Slot> slots = JsonSplicer.locate(json);
+        assertEquals(List.of("$+"), paths(slots));
+        assertEquals("x", JSON.parseObject(spliceAll(json, slots)).getJSONObject(JsonSplicer.WRAP_KEY).getString("@type"));
+    }
+
+    @Test
+    void splicesOnlySelectedSlots() {
+        String json = "{\"p\":{\"q\":1},\"r\":{\"s\":2}}";
+        List<JsonSplicer.Slot> slots = JsonSplicer.locate(json);
+        JsonSplicer.Slot second = slots.get(2);
+        assertEquals("$.r", second.path());
+        JSONObject spliced = JSON.parseObject(JsonSplicer.splice(json, List.of(second), List.of(PAYLOAD)));
+        assertEquals(1, spliced.getJSONObject("p").getIntValue("q"));
+        assertEquals("x", spliced.getJSONObject("r").getString("@type"));
+    }
+
+    @Test
+    void returnsNoSlotsForNonJson() {
+        assertTrue(JsonSplicer.locate("a=1&b=2").isEmpty());
+        assertTrue(JsonSplicer.locate("\"text\"").isEmpty());
+        assertTrue(JsonSplicer.locate("{\"a\":").isEmpty());
+        assertTrue(JsonSplicer.locate("").isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RouteTemplateLearnerTest {
+    private static final String HOST = "https://t.example";
+
+    @BeforeAll
+    static void setThreshold() {
+        DnslogConfig.getInstance().scanRouteVarThreshold = 3;
+    }
+
+    @Test
+    void classifiesByFormat() {
+        assertEquals("{int}", RouteTemplateLearner.classify("1001"));
+        assertEquals("{int}.json", RouteTemplateLearner.classify("1001.json"));
+        assertEquals("{date}", RouteTemplateLearner.classify("2024-05-31"));
+        assertEquals("{date}", RouteTemplateLearner.classify("20240531"));
+        assertEquals("{uuid}", RouteTemplateLearner.classify("123e4567-e89b-12d3-a456-426614174000"));
+        assertEquals("{hash}", RouteTemplateLearner.classify("d41d8cd98f00b204e9800998ecf8427e"));
+        assertEquals("{token}", RouteTemplateLearner.classify("abc_def-ghi_jkl-mno_pqr-1"));
+        // 纯字母的十六进制串或长单词不是变量
+        assertEquals("deadbeefcafebabe", RouteTemplateLearner.classify("deadbeefcafebabe"));
+        assertEquals("user", RouteTemplateLearner.classify("user"));
+        assertEquals("index.html", RouteTemplateLearner.classify("index.html"));
+        assertEquals(".env", RouteTemplateLearner.classify(".env"));
+    }
+
+    @Test
+    void collapsesTrailingSegmentAfterThreshold() {
+        RouteTemplateLearner learner = new RouteTemplateLearner();
+        assertEquals(HOST + "/api/user/alice", learner.template(HOST + "/api/user/alice", true));
+        assertEquals(HOST + "/api/user/bob", learner.template(HOST + "/api/user/bob", true));
+        assertEquals(HOST + "/api/user/carol", learner.template(HOST + "/api/user/carol", true));
+        // 第4个不同的末尾取值超过阈值，合并为 {var}
+        assertEquals(HOST + "/api/user/{var}", learner.template(HOST + "/api/user/dave", true));
+        assertEquals(HOST + "/api/user/{var}", learner.template(HOST + "/api/user/erin", true));
+        assertEquals(HOST + "/api/user/{var}", learner.template(HOST + "/api/user/alice", false));
+        // 按格式识别的末尾段不受影响
+        assertEquals(HOST + "/api/user/{int}", learner.template(HOST + "/api/user/42", true));
+    }
+
+    @Test
+    void keepsMiddleSegmentsLiteral() {
+        RouteTemplateLearner learner = new RouteTemplateLearner();
+        for (String name : new String[]{"alice", "bob", "carol", "dave", "erin", "frank"}) {
+            assertEquals(HOST + "/api/" + name + "/delete", learner.template(HOST + "/api/" + name + "/delete", true));
+        }
+        assertEquals(HOST + "/api/grace/delete", learner.template(HOST + "/api/grace/delete", false));
+    }
+
+    @Test
+    void keepsLiteralsWithChildrenAfterCollapse() {
+        RouteTemplateLearner learner = new RouteTemplateLearner();
+        learner.template(HOST + "/user/profile/edit", true);
+        for (String name : new String[]{"a", "b", "c", "d", "e"}) {
+            learner.template(HOST + "/user/" + name, true);
+        }
+        assertEquals(HOST + "/user/{var}", learner.template(HOST + "/user/z", false));
+        assertEquals(HOST + "/user/profile/edit", learner.template(HOST + "/user/profile/edit", true));
+    }
+
+    @Test
+    void separatesHosts() {
+        RouteTemplateLearner learner = new RouteTemplateLearner();
+        for (String name : new String[]{"a", "b", "c", "d"}) {
+            learner.template(HOST + "/p/" + name, true);
+        }
+        assertEquals(HOST + "/p/{var}", learner.template(HOST + "/p/x", false));
+        assertEquals("https://other.example/p/x", learner.template("https://other.example/p/x", true));
+    }
+}
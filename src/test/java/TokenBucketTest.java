@@ -0,0 +1,104 @@
+/*
+ * JaySenScan - Burp Suite 加密环境渗透测试插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/JaySenScan
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void concurrentReservationsAreEvenlySpaced() throws Exception {
+        int threads = 16;
+        int perThread = 50;
+        // 间隔100ms，突发10个
+        TokenBucket bucket = new TokenBucket(10);
+        long before = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long[] times;
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long[] reserved = new long[perThread];
+                    for (int j = 0; j < perThread; j++) {
+                        reserved[j] = bucket.reserve();
+                    }
+                    return reserved;
+                }));
+            }
+            start.countDown();
+            times = new long[threads * perThread];
+            int n = 0;
+            for (Future<long[]> future : futures) {
+                for (long time : future.get(10, TimeUnit.SECONDS)) {
+                    times[n++] = time;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long after = System.nanoTime();
+
+        Arrays.sort(times);
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+        for (int i = 1; i < times.length; i++) {
+            assertEquals(interval, times[i] - times[i - 1], "reservation " + i);
+        }
+        // 只有突发令牌可以立即执行
+        int immediate = 0;
+        for (long time : times) {
+            if (time <= after) {
+                immediate++;
+            }
+        }
+        long elapsedTokens = (after - before) / interval + 1;
+        assertTrue(immediate <= 10 + elapsedTokens, "immediate=" + immediate);
+        assertTrue(times[0] >= before - 9 * interval);
+    }
+
+    @Test
+    void acquireWaitsOnceBurstIsSpent() throws InterruptedException {
+        // 间隔20ms，突发50个
+        TokenBucket bucket = new TokenBucket(50);
+        long start = System.nanoTime();
+        for (int i = 0; i < 60; i++) {
+            bucket.acquire();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 突发之后的10个令牌至少需要约200ms（留出计时误差）
+        assertTrue(elapsedMillis >= 180, "elapsed=" + elapsedMillis);
+    }
+
+    @Test
+    void setRateChangesSpacing() {
+        TokenBucket bucket = new TokenBucket(1000);
+        bucket.setRate(2);
+        assertEquals(2.0, bucket.getRate());
+        bucket.reserve();
+        long first = bucket.reserve();
+        long second = bucket.reserve();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), second - first);
+    }
+}